@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+#
+# High-concurrency read load against a running Duebook instance, for comparing platform-thread
+# and virtual-thread mode (spring.threads.virtual.enabled=true, Java 21+). Start the app in one
+# mode, run this, restart in the other mode and run it again with the same arguments.
+# Needs ApacheBench (ab) and a JWT for an existing user. Start the app with
+# --api.rate-limit.enabled=false, or the per-user limiter answers most requests with 429.
+#
+# Usage: load-test.sh <jwt> [concurrency] [requests] [path]
+#
+# Results: not measured yet. The comparison needs a Java 21 runtime plus the Postgres and Redis
+# the app normally runs against; the build machine so far had Java 17 only. Record both runs
+# here (same host, same arguments, default 400 x 20000 on /api/shops):
+#
+#   mode       JDK  req/s  p50 ms  p95 ms  p99 ms  failed
+#   platform    -     -      -       -       -       -
+#   virtual     -     -      -       -       -       -
+#
+set -euo pipefail
+
+TOKEN="${1:?JWT required}"
+CONCURRENCY="${2:-400}"
+REQUESTS="${3:-20000}"
+URL_PATH="${4:-/api/shops}"
+BASE="${BASE_URL:-http://localhost:8083}"
+
+ab -q -k -c "$CONCURRENCY" -n "$REQUESTS" \
+   -H "Authorization: Bearer $TOKEN" \
+   "$BASE$URL_PATH" | grep -E "Concurrency Level|Complete requests|Failed requests|Non-2xx|Requests per second|Time per request|50%|95%|99%"
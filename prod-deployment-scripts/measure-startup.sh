@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+#
+# Measures time-to-first-request of the Duebook app: from launching the JVM until
+# GET / (the Angular index page) answers 200. Needs the database and Redis from the
+# active configuration to be reachable, as in a normal start.
+#
+# Usage:
+#   measure-startup.sh jar  [runs]   # plain fat jar:   target/duebook-1.1.0.jar
+#   measure-startup.sh fast [runs]   # AOT + CDS build: target/fast-startup (mvn -Pfast-startup package)
+#
+set -euo pipefail
+
+MODE="${1:-jar}"
+RUNS="${2:-5}"
+PORT="${SERVER_PORT:-8083}"
+TARGET_DIR="$(cd "$(dirname "$0")/../target" && pwd)"
+JAR_NAME="duebook-1.1.0.jar"
+
+case "$MODE" in
+  jar)
+    WORK_DIR="$TARGET_DIR"
+    CMD=(java -jar "$JAR_NAME")
+    ;;
+  fast)
+    WORK_DIR="$TARGET_DIR/fast-startup"
+    CMD=(java -XX:SharedArchiveFile=duebook.jsa -Xlog:cds=off -Dspring.aot.enabled=true -jar "$JAR_NAME")
+    ;;
+  *)
+    echo "Unknown mode: $MODE (expected jar or fast)" >&2
+    exit 1
+    ;;
+esac
+
+total=0
+for run in $(seq 1 "$RUNS"); do
+  start=$(date +%s%N)
+  (cd "$WORK_DIR" && exec "${CMD[@]}" --server.port="$PORT" >/dev/null 2>&1) &
+  pid=$!
+
+  until curl -sf -o /dev/null "http://localhost:$PORT/"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Application exited before answering (run $run)" >&2
+      exit 1
+    fi
+    sleep 0.05
+  done
+  elapsed=$(( ($(date +%s%N) - start) / 1000000 ))
+  total=$(( total + elapsed ))
+  echo "run $run: ${elapsed}ms"
+
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+done
+
+echo "$MODE: average time to first request over $RUNS runs: $(( total / RUNS ))ms"
@@ -0,0 +1,69 @@
+#!/usr/bin/env bash
+#
+# Smoke test for the native image (mvn -Pnative native:compile). Starts target/duebook against
+# the local Postgres and Redis from the active configuration (override with the usual
+# SPRING_DATASOURCE_* / SPRING_DATA_REDIS_* environment variables) and exercises the paths that
+# depend on native hints: static resources, security, JPA, Jackson (JSON and CBOR) and jjwt.
+#
+# Usage: native-smoke-test.sh [path-to-binary]
+#
+set -uo pipefail
+
+BINARY="${1:-$(cd "$(dirname "$0")/../target" && pwd)/duebook}"
+PORT="${SERVER_PORT:-18083}"
+BASE="http://localhost:$PORT"
+LOG="$(mktemp -t duebook-native-XXXX.log)"
+FAILURES=0
+
+"$BINARY" --server.port="$PORT" >"$LOG" 2>&1 &
+PID=$!
+trap 'kill $PID 2>/dev/null; wait $PID 2>/dev/null' EXIT
+
+start=$(date +%s%N)
+until curl -sf -o /dev/null "$BASE/"; do
+  if ! kill -0 "$PID" 2>/dev/null; then
+    echo "FAIL: native binary exited during startup; log: $LOG" >&2
+    tail -50 "$LOG" >&2
+    exit 1
+  fi
+  sleep 0.05
+done
+echo "Started in $(( ($(date +%s%N) - start) / 1000000 ))ms, RSS $(ps -o rss= -p "$PID" | tr -d ' ')KB"
+
+# expect <description> <expected status> <expected body fragment or ''> curl-args...
+expect() {
+  local description="$1" status="$2" fragment="$3"
+  shift 3
+  local body actual
+  body=$(curl -s -o - -w '\n%{http_code}' "$@")
+  actual="${body##*$'\n'}"
+  body="${body%$'\n'*}"
+  if [[ "$actual" != "$status" || ( -n "$fragment" && "$body" != *"$fragment"* ) ]]; then
+    echo "FAIL: $description (status $actual, body: ${body:0:200})"
+    FAILURES=$((FAILURES + 1))
+  else
+    echo "ok:   $description"
+  fi
+}
+
+expect "Angular index is served" 200 "<app-root" "$BASE/"
+expect "Protected API rejects anonymous callers" 403 "" "$BASE/api/ledger"
+expect "Invalid token is rejected by the JWT filter" 403 "" -H "Authorization: Bearer not.a.jwt" "$BASE/api/dashboard/metrics"
+expect "Login validation error is serialized as JSON" 400 "VALIDATION_ERROR" \
+  -H "Content-Type: application/json" -d '{}' "$BASE/api/auth/login"
+expect "Login against the database rejects an unknown phone" 401 "" \
+  -H "Content-Type: application/json" -d '{"phone":"0000000000","password":"x"}' "$BASE/api/auth/login"
+expect "CBOR error responses are negotiated" 400 "" \
+  -H "Accept: application/cbor" -H "Content-Type: application/json" -d '{}' "$BASE/api/auth/login"
+
+if grep -qE "MissingReflectionRegistrationError|MissingResourceRegistrationError|ClassNotFoundException|NoSuchMethodException" "$LOG"; then
+  echo "FAIL: missing native metadata reported in $LOG"
+  grep -E "MissingReflectionRegistrationError|MissingResourceRegistrationError|ClassNotFoundException|NoSuchMethodException" "$LOG" | head -10
+  FAILURES=$((FAILURES + 1))
+fi
+
+if [[ $FAILURES -gt 0 ]]; then
+  echo "$FAILURES smoke check(s) failed; log: $LOG"
+  exit 1
+fi
+echo "All smoke checks passed"
@@ -0,0 +1,11 @@
+#!/usr/bin/env bash
+#
+# Runs once when the primary's data directory is created (see replica-compose.yml): adds the
+# role the standby streams WAL with and lets it connect for replication.
+#
+set -euo pipefail
+
+psql -v ON_ERROR_STOP=1 -U "$POSTGRES_USER" -d "$POSTGRES_DB" \
+     -c "CREATE ROLE replicator WITH REPLICATION LOGIN PASSWORD '${REPLICATION_PASSWORD}'"
+
+echo "host replication replicator all scram-sha-256" >> "$PGDATA/pg_hba.conf"
@@ -0,0 +1,33 @@
+package com.duebook.app.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Thread factories for the application's own background executors (email dispatch, event
+ * stream senders, Redis listeners). With spring.threads.virtual.enabled=true on Java 21+
+ * they create virtual threads, matching what Boot does for Tomcat, @Async and @Scheduled.
+ */
+@Component
+@RequiredArgsConstructor
+public class BackgroundThreads {
+
+    private final Environment environment;
+
+    public boolean isVirtual() {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    public ThreadFactory factory(String namePrefix) {
+        if (isVirtual()) {
+            return new VirtualThreadTaskExecutor(namePrefix).getVirtualThreadFactory();
+        }
+        return new CustomizableThreadFactory(namePrefix);
+    }
+}
@@ -0,0 +1,65 @@
+package com.duebook.app.config;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.util.ClassUtils;
+
+/**
+ * GraalVM native-image hints for what Spring AOT cannot infer from bean definitions and
+ * controller signatures. Only read when building with -Pnative; no effect on the JVM.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.DuebookRuntimeHints.class)
+public class NativeHintsConfig {
+
+    static class DuebookRuntimeHints implements RuntimeHintsRegistrar {
+
+        // DTOs travel through Redis streams, pub/sub and the Resend API, and entities are
+        // snapshotted to JSON for the audit log, all via ObjectMapper outside MVC
+        private static final String[] JSON_PACKAGES = {"com.duebook.app.dto", "com.duebook.app.model"};
+
+        // jjwt-api creates its implementation classes by name (jjwt-impl is runtime-only)
+        private static final String[] JJWT_CLASSES = {
+                "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                "io.jsonwebtoken.impl.DefaultJwtParser",
+                "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                "io.jsonwebtoken.impl.DefaultClaims",
+                "io.jsonwebtoken.impl.DefaultHeader",
+                "io.jsonwebtoken.impl.DefaultJwsHeader",
+                "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+                "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+                "io.jsonwebtoken.impl.crypto.MacProvider",
+                "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+        };
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter((metadataReader, metadataReaderFactory) -> true);
+            for (String basePackage : JSON_PACKAGES) {
+                for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+                    bindingHints.registerReflectionHints(hints.reflection(),
+                            ClassUtils.resolveClassName(candidate.getBeanClassName(), classLoader));
+                }
+            }
+
+            for (String className : JJWT_CLASSES) {
+                hints.reflection().registerType(TypeReference.of(className),
+                        MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+
+            // Email templates are resolved by name at dispatch time
+            hints.resources().registerPattern("templates/email/*.html");
+        }
+    }
+}
@@ -1,16 +1,14 @@
 package com.duebook.app.config;
 
-import com.duebook.app.dto.ResendEmailPayload;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 import java.time.Duration;
 
@@ -29,17 +27,17 @@ public class RedisCacheConfig {
     }
 
     @Bean
-    public KeyGenerator keyGenerator() {
-        return (target, method, params) -> method.getName() + "::" + params[0];
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                        BackgroundThreads backgroundThreads) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.setTaskExecutor(new SimpleAsyncTaskExecutor(backgroundThreads.factory("duebook-redis-listener-")));
+        return container;
     }
 
     @Bean
-    public RedisTemplate<String, ResendEmailPayload> resendEmailPayloadRedisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, ResendEmailPayload> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(new Jackson2JsonRedisSerializer<>(ResendEmailPayload.class));
-        return template;
+    public KeyGenerator keyGenerator() {
+        return (target, method, params) -> method.getName() + "::" + params[0];
     }
 
 }
@@ -0,0 +1,67 @@
+package com.duebook.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Primary/replica data sources, enabled with spring.datasource.replica.enabled=true.
+ * The primary pool is configured from the usual spring.datasource.* properties; the replica
+ * pool reuses them with the URL, credentials and pool size from spring.datasource.replica.*.
+ * Relies on hibernate.connection.handling_mode releasing the connection after each transaction,
+ * so a later write in an open-in-view request is not issued on a replica connection.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Value("${spring.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${spring.datasource.replica.username:${spring.datasource.username}}")
+    private String replicaUsername;
+
+    @Value("${spring.datasource.replica.password:${spring.datasource.password}}")
+    private String replicaPassword;
+
+    @Value("${spring.datasource.replica.maximum-pool-size:20}")
+    private int replicaPoolSize;
+
+    @Value("${spring.datasource.replica.max-lag-seconds:5}")
+    private double maxLagSeconds;
+
+    @Value("${spring.datasource.replica.read-your-writes-seconds:5}")
+    private long readYourWritesSeconds;
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties properties, Environment environment) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("duebook-primary");
+
+        HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .url(replicaUrl).username(replicaUsername).password(replicaPassword).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+        replica.setPoolName("duebook-replica");
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setReadOnly(true);
+
+        return new ReplicaRoutingDataSource(primary, replica, maxLagSeconds, readYourWritesSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
@@ -0,0 +1,132 @@
+package com.duebook.app.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Routes read-only transactions to the replica pool and everything else to the primary.
+ *
+ * Reads fall back to the primary while the replica lags by more than the configured limit
+ * (or cannot be reached), and for a short window after the same user wrote, so users see
+ * their own changes. A request that must not see any lag (a body paired with a fresh ETag,
+ * a stream access check) can ask for fresh reads: those go to the primary only while the
+ * replica was last measured behind it, and stay on the replica otherwise.
+ * Must sit behind a LazyConnectionDataSourceProxy so the routing key is
+ * resolved after the transaction's read-only flag is set.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    enum Target { PRIMARY, REPLICA }
+
+    // Seconds behind the primary; 0 when fully replayed or when the database is not a standby
+    private static final String LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private static final String FRESH_READS_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".FRESH_READS";
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final double maxLagSeconds;
+    private final long stickyMillis;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private volatile boolean replicaAvailable = true;
+    private volatile double replicaLagSeconds;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, HikariDataSource replica, double maxLagSeconds, long stickySeconds) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaJdbcTemplate = new JdbcTemplate(replica);
+        this.maxLagSeconds = maxLagSeconds;
+        this.stickyMillis = TimeUnit.SECONDS.toMillis(stickySeconds);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String user = currentUser();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (user != null && TransactionSynchronizationManager.isActualTransactionActive()) {
+                lastWriteByUser.put(user, System.currentTimeMillis());
+            }
+            return Target.PRIMARY;
+        }
+        if (!replicaAvailable || (replicaLagSeconds > 0 && freshReadsRequested())) {
+            return Target.PRIMARY;
+        }
+        if (user != null) {
+            Long lastWrite = lastWriteByUser.get(user);
+            if (lastWrite != null && System.currentTimeMillis() - lastWrite < stickyMillis) {
+                return Target.PRIMARY;
+            }
+        }
+        return Target.REPLICA;
+    }
+
+    /**
+     * Mark the rest of the current request's reads as unable to tolerate replica lag; a no-op
+     * outside a request or when no replica is configured. Call before the transaction runs its
+     * first statement.
+     */
+    public static void requireFreshReads() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(FRESH_READS_ATTRIBUTE, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.datasource.replica.lag-check.interval.millis:5000}")
+    public void checkReplicaLag() {
+        boolean available;
+        try {
+            Double lag = replicaJdbcTemplate.queryForObject(LAG_QUERY, Double.class);
+            replicaLagSeconds = lag != null ? lag : 0;
+            available = replicaLagSeconds <= maxLagSeconds;
+            if (!available) {
+                log.warn("Replica is {}s behind the primary (limit {}s); routing reads to primary", lag, maxLagSeconds);
+            }
+        } catch (Exception e) {
+            log.warn("Replica lag check failed; routing reads to primary: {}", e.getMessage());
+            available = false;
+        }
+        if (available && !replicaAvailable) {
+            log.info("Replica caught up; routing read-only transactions to replica again");
+        }
+        replicaAvailable = available;
+
+        long cutoff = System.currentTimeMillis() - stickyMillis;
+        lastWriteByUser.values().removeIf(at -> at < cutoff);
+    }
+
+    private static boolean freshReadsRequested() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(FRESH_READS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : null;
+    }
+
+    @Override
+    public void destroy() {
+        replica.close();
+        primary.close();
+    }
+}
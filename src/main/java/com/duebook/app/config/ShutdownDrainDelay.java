@@ -0,0 +1,35 @@
+package com.duebook.app.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps serving for a short while after shutdown starts. Readiness already reports 503 by the
+ * time this runs, so a load balancer polling /health/readiness stops routing here before the
+ * web server stops accepting connections and drains in-flight requests.
+ */
+@Slf4j
+@Component
+public class ShutdownDrainDelay {
+
+    @Value("${shutdown.drain.delay.seconds:0}")
+    private long drainDelaySeconds;
+
+    @EventListener(ContextClosedEvent.class)
+    public void delayShutdown() {
+        if (drainDelaySeconds <= 0) {
+            return;
+        }
+        log.info("Shutdown requested; readiness is down, still accepting requests for {}s", drainDelaySeconds);
+        try {
+            TimeUnit.SECONDS.sleep(drainDelaySeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package com.duebook.app.controller;
 
 import com.duebook.app.dto.AuditLogDTO;
+import com.duebook.app.dto.PageResponse;
 import com.duebook.app.exception.ApplicationException;
 import com.duebook.app.model.AuditLog;
 import com.duebook.app.model.ShopUser;
 import com.duebook.app.model.User;
+import com.duebook.app.repository.AuditLogDictionaryRepository;
 import com.duebook.app.repository.AuditLogRepository;
 import com.duebook.app.repository.ShopUserRepository;
 import com.duebook.app.repository.UserRepository;
+import com.duebook.app.service.AuditArchiveService;
 import com.duebook.app.service.AuditService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,7 +37,9 @@ import java.util.List;
 public class AuditLogController {
 
     private final AuditService auditService;
+    private final AuditArchiveService auditArchiveService;
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogDictionaryRepository auditLogDictionaryRepository;
     private final UserRepository userRepository;
     private final ShopUserRepository shopUserRepository;
 
@@ -62,7 +67,7 @@ public class AuditLogController {
             accessibleShopIds = getAccessibleShopIdsForUser(userId);
             if (accessibleShopIds.isEmpty()) {
                 // User has no accessible shops
-                return ResponseEntity.ok(new org.springframework.data.domain.PageImpl<>(new java.util.ArrayList<>()));
+                return ResponseEntity.ok(PageResponse.empty());
             }
         } else {
             // Specific shop - verify access
@@ -77,6 +82,8 @@ public class AuditLogController {
         Page<AuditLog> auditLogs;
 
         // Parse date range if provided
+        // Bounds are half-open [start of startDate, start of day after endDate) on performed_at,
+        // the audit_log partition key, so Postgres only scans the monthly partitions in range
         java.time.LocalDateTime startDateTime = null;
         java.time.LocalDateTime endDateTime = null;
 
@@ -87,7 +94,7 @@ public class AuditLogController {
                 java.time.LocalDate end = java.time.LocalDate.parse(endDate, formatter);
 
                 startDateTime = start.atStartOfDay();
-                endDateTime = end.atTime(23, 59, 59);
+                endDateTime = end.plusDays(1).atStartOfDay();
             } catch (Exception e) {
                 log.error("Error parsing date range: start={}, end={}", startDate, endDate, e);
             }
@@ -132,10 +139,16 @@ public class AuditLogController {
 
         Page<AuditLogDTO> dtos = auditLogs.map(this::convertToDTO);
 
+        // Date ranges reaching into archived months continue with rows from the cold archive
+        if (startDateTime != null && endDateTime != null
+                && auditArchiveService.hasArchivedData(accessibleShopIds, startDateTime, endDateTime)) {
+            dtos = auditArchiveService.mergeWithArchive(dtos, accessibleShopIds, action, entityType, startDateTime, endDateTime, pageable);
+        }
+
         log.info("Retrieved page {} with {} audit logs for accessible shops: {} (action: {}, entityType: {}, startDate: {}, endDate: {})",
                 page, dtos.getContent().size(), accessibleShopIds, action, entityType, startDate, endDate);
 
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(PageResponse.of(dtos));
     }
 
     @GetMapping("/actions")
@@ -152,7 +165,7 @@ public class AuditLogController {
 
         log.debug("Fetching distinct actions for shop IDs: {} by user ID: {}", accessibleShopIds, userId);
 
-        var actions = auditLogRepository.findDistinctActionsByShopId(accessibleShopIds);
+        var actions = auditLogDictionaryRepository.findDistinctActionsByShopId(accessibleShopIds);
         log.info("Retrieved {} distinct actions for shop IDs: {}", actions.size(), accessibleShopIds);
 
         return ResponseEntity.ok(actions);
@@ -171,7 +184,7 @@ public class AuditLogController {
         }
         log.debug("Fetching distinct entity types for shop IDs: {} by user ID: {}", accessibleShopIds, userId);
 
-        var entityTypes = auditLogRepository.findDistinctEntityTypesByShopId(accessibleShopIds);
+        var entityTypes = auditLogDictionaryRepository.findDistinctEntityTypesByShopId(accessibleShopIds);
         log.info("Retrieved {} distinct entity types for shop IDs: {}", entityTypes.size(), accessibleShopIds);
 
         return ResponseEntity.ok(entityTypes);
@@ -186,7 +199,7 @@ public class AuditLogController {
         dto.setAction(auditLog.getAction());
         dto.setPerformedById(auditLog.getPerformedBy().getId());
         dto.setPerformedByName(auditLog.getPerformedBy().getName());
-        dto.setOldValue(auditLog.getOldValue());
+        dto.setOldValue(auditService.resolveOldValue(auditLog));
         dto.setNewValue(auditLog.getNewValue());
         dto.setPerformedAt(auditLog.getPerformedAt());
         return dto;
@@ -6,6 +6,7 @@ import com.duebook.app.dto.OtpRequest;
 import com.duebook.app.dto.OtpVerifyRequest;
 import com.duebook.app.dto.SignupRequest;
 import com.duebook.app.service.AuthService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -41,9 +42,9 @@ public class AuthController {
     }
 
     @PostMapping("/request-otp")
-    public ResponseEntity<Map<String, String>> requestOtp(@Valid @RequestBody OtpRequest request) {
+    public ResponseEntity<Map<String, String>> requestOtp(@Valid @RequestBody OtpRequest request, HttpServletRequest httpRequest) {
         log.info("OTP requested for email: {}", request.getEmail());
-        authService.requestOtp(request.getEmail());
+        authService.requestOtp(request.getEmail(), httpRequest.getRemoteAddr());
         log.info("OTP sent successfully to email: {}", request.getEmail());
         Map<String, String> response = new HashMap<>();
         response.put("message", "OTP sent to your email");
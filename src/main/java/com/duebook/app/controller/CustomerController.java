@@ -1,8 +1,13 @@
 package com.duebook.app.controller;
 
 import com.duebook.app.dto.CustomerDTO;
+import com.duebook.app.dto.CustomerLookupDTO;
 import com.duebook.app.dto.CustomerSummaryDTO;
+import com.duebook.app.dto.PageResponse;
+import com.duebook.app.service.CustomerSearchIndex;
 import com.duebook.app.service.CustomerService;
+import com.duebook.app.service.IdempotencyService;
+import com.duebook.app.service.ShopDataVersionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import com.duebook.app.model.User;
 import com.duebook.app.repository.UserRepository;
 import com.duebook.app.exception.ApplicationException;
@@ -32,16 +38,22 @@ import java.util.List;
 public class CustomerController {
 
     private final CustomerService customerService;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final IdempotencyService idempotencyService;
     private final UserRepository userRepository;
     private final CustomerRepository customerRepository;
     private final ShopUserRepository shopUserRepository;
+    private final ShopDataVersionService shopDataVersionService;
 
     /**
      * Get all customers for the authenticated user
      */
     @GetMapping
-    public ResponseEntity<List<CustomerDTO>> getAllCustomers(Authentication authentication) {
+    public ResponseEntity<List<CustomerDTO>> getAllCustomers(Authentication authentication, ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, getAccessibleShopIdsForUser(userId))) {
+            return null;
+        }
         log.debug("Fetching all customers for user ID: {}", userId);
         List<CustomerDTO> customers = customerService.getAllCustomersForUser(userId);
         log.info("Retrieved {} customers for user ID: {}", customers.size(), userId);
@@ -67,13 +79,14 @@ public class CustomerController {
      * Supports filtering by status and search term
      */
     @GetMapping("/shop/{shopId}/paginated")
-    public ResponseEntity<Page<CustomerDTO>> getCustomersByShopPaginated(
+    public ResponseEntity<PageResponse<CustomerDTO>> getCustomersByShopPaginated(
             @PathVariable Long shopId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String searchTerm,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
 
         Long userId = extractUserId(authentication);
 
@@ -84,7 +97,7 @@ public class CustomerController {
             accessibleShopIds = getAccessibleShopIdsForUser(userId);
             if (accessibleShopIds.isEmpty()) {
                 // User has no accessible shops
-                return ResponseEntity.ok(new org.springframework.data.domain.PageImpl<>(new java.util.ArrayList<>()));
+                return ResponseEntity.ok(PageResponse.empty());
             }
         } else {
             // Specific shop - verify access
@@ -92,6 +105,10 @@ public class CustomerController {
             accessibleShopIds = java.util.List.of(shopId);
         }
 
+        if (shopDataVersionService.checkNotModified(webRequest, userId, accessibleShopIds)) {
+            return null;
+        }
+
         log.debug("Fetching paginated customers for shop ID: {} (accessible shops: {}, page: {}, size: {}, status: {}, searchTerm: {}) by user ID: {}",
                 shopId, accessibleShopIds, page, size, status, searchTerm, userId);
 
@@ -103,7 +120,7 @@ public class CustomerController {
         log.info("Retrieved page {} with {} customers for accessible shops: {} (status: {}, searchTerm: {})",
                 page, dtos.getContent().size(), accessibleShopIds, status, searchTerm);
 
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(PageResponse.of(dtos));
     }
 
     /**
@@ -115,7 +132,8 @@ public class CustomerController {
             @PathVariable Long shopId,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String searchTerm,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
 
         Long userId = extractUserId(authentication);
         Long actualShopId = (shopId == 0) ? null : shopId;
@@ -123,6 +141,10 @@ public class CustomerController {
         if (actualShopId != null) {
             verifyUserAccessToShop(actualShopId, userId);
         }
+        List<Long> versionedShopIds = actualShopId != null ? List.of(actualShopId) : getAccessibleShopIdsForUser(userId);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, versionedShopIds)) {
+            return null;
+        }
 
         log.debug("Fetching customer summary for shop ID: {} (status: {}, searchTerm: {}) by user ID: {}",
                 shopId, status, searchTerm, userId);
@@ -135,6 +157,25 @@ public class CustomerController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Typeahead lookup of customers in a shop by name, entity name or phone prefix
+     * Served from the in-memory customer index instead of a LIKE query per keystroke
+     */
+    @GetMapping("/shop/{shopId}/autocomplete")
+    public ResponseEntity<List<CustomerLookupDTO>> autocompleteCustomers(
+            @PathVariable Long shopId,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication authentication) {
+
+        Long userId = extractUserId(authentication);
+        verifyUserAccessToShop(shopId, userId);
+
+        List<CustomerLookupDTO> matches = customerSearchIndex.search(shopId, q, Math.min(limit, 50));
+        log.debug("Autocomplete for shop ID: {} (q: {}) returned {} customers", shopId, q, matches.size());
+        return ResponseEntity.ok(matches);
+    }
+
     private Page<Customer> getFilteredCustomers(List<Long> shopIds, String status, String searchTerm, Pageable pageable) {
         boolean hasStatus = status != null && !status.trim().isEmpty();
         boolean hasSearch = searchTerm != null && !searchTerm.trim().isEmpty();
@@ -156,12 +197,15 @@ public class CustomerController {
     @PostMapping
     public ResponseEntity<CustomerDTO> createCustomer(
             @Valid @RequestBody CustomerDTO customerDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         Long userId = extractUserId(authentication);
         log.info("Creating new customer: {} for shop ID: {} by user ID: {}", customerDTO.getName(), customerDTO.getShopId(), userId);
-        CustomerDTO createdCustomer = customerService.createCustomer(customerDTO, userId);
-        log.info("Customer created successfully with ID: {} by user ID: {}", createdCustomer.getId(), userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdCustomer);
+        return idempotencyService.execute(idempotencyKey, userId, "POST /api/customers", customerDTO, CustomerDTO.class, () -> {
+            CustomerDTO createdCustomer = customerService.createCustomer(customerDTO, userId);
+            log.info("Customer created successfully with ID: {} by user ID: {}", createdCustomer.getId(), userId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdCustomer);
+        });
     }
 
     /**
@@ -186,8 +230,13 @@ public class CustomerController {
     @GetMapping("/shops/{shopId}")
     public ResponseEntity<List<CustomerDTO>> getCustomersByShop(
             @PathVariable Long shopId,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        verifyUserAccessToShop(shopId, userId);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, List.of(shopId))) {
+            return null;
+        }
         log.debug("Fetching customers for shop ID: {} by user ID: {}", shopId, userId);
         List<CustomerDTO> customers = customerService.getCustomersByShop(shopId, userId);
         log.info("Retrieved {} customers for shop ID: {}", customers.size(), shopId);
@@ -200,8 +249,13 @@ public class CustomerController {
     @GetMapping("/shops/{shopId}/active")
     public ResponseEntity<List<CustomerDTO>> getActiveCustomersByShop(
             @PathVariable Long shopId,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        verifyUserAccessToShop(shopId, userId);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, List.of(shopId))) {
+            return null;
+        }
         log.debug("Fetching active customers for shop ID: {} by user ID: {}", shopId, userId);
         List<CustomerDTO> customers = customerService.getActiveCustomersByShop(shopId, userId);
         log.info("Retrieved {} active customers for shop ID: {}", customers.size(), shopId);
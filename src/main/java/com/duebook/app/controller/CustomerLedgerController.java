@@ -2,7 +2,14 @@ package com.duebook.app.controller;
 
 import com.duebook.app.dto.CustomerLedgerDTO;
 import com.duebook.app.dto.LedgerSummaryDTO;
+import com.duebook.app.dto.PageResponse;
+import com.duebook.app.dto.PaymentModeTotalDTO;
 import com.duebook.app.service.CustomerLedgerService;
+import com.duebook.app.service.IdempotencyService;
+import com.duebook.app.service.ReportingBulkheadService;
+import com.duebook.app.service.ShopDataVersionService;
+import com.duebook.app.service.ShopEventService;
+import com.duebook.app.service.ShopEventTicketService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -10,10 +17,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import com.duebook.app.model.User;
 import com.duebook.app.repository.UserRepository;
 import com.duebook.app.exception.ApplicationException;
@@ -26,6 +36,7 @@ import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/ledger")
@@ -39,15 +50,24 @@ public class CustomerLedgerController {
     private final CustomerLedgerRepository customerLedgerRepository;
     private final ShopUserRepository shopUserRepository;
     private final CustomerLedgerService customerLedgerService;
+    private final ShopDataVersionService shopDataVersionService;
+    private final ShopEventService shopEventService;
+    private final ShopEventTicketService shopEventTicketService;
+    private final ReportingBulkheadService reportingBulkheadService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * Get all ledger entries for the authenticated user
      */
     @GetMapping
-    public ResponseEntity<List<CustomerLedgerDTO>> getAllLedgerEntries(Authentication authentication) {
+    public ResponseEntity<List<CustomerLedgerDTO>> getAllLedgerEntries(Authentication authentication, ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, getAccessibleShopIdsForUser(userId))) {
+            return null;
+        }
         log.debug("Fetching all ledger entries for user ID: {}", userId);
-        List<CustomerLedgerDTO> entries = ledgerService.getAllLedgerEntriesForUser(userId);
+        List<CustomerLedgerDTO> entries = reportingBulkheadService.run("all ledger entries",
+                () -> ledgerService.getAllLedgerEntriesForUser(userId));
         log.info("Retrieved {} ledger entries for user ID: {}", entries.size(), userId);
         return ResponseEntity.ok(entries);
     }
@@ -57,7 +77,7 @@ public class CustomerLedgerController {
      * Supports filtering by customer, entryType, and date range
      */
     @GetMapping("/shop/{shopId}/paginated")
-    public ResponseEntity<Page<CustomerLedgerDTO>> getLedgerEntriesByShopPaginatedWithFilters(
+    public ResponseEntity<PageResponse<CustomerLedgerDTO>> getLedgerEntriesByShopPaginatedWithFilters(
             @PathVariable Long shopId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
@@ -65,7 +85,8 @@ public class CustomerLedgerController {
             @RequestParam(required = false) String entryType,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
 
         Long userId = extractUserId(authentication);
 
@@ -76,7 +97,7 @@ public class CustomerLedgerController {
             accessibleShopIds = getAccessibleShopIdsForUser(userId);
             if (accessibleShopIds.isEmpty()) {
                 // User has no accessible shops
-                return ResponseEntity.ok(new org.springframework.data.domain.PageImpl<>(new java.util.ArrayList<>()));
+                return ResponseEntity.ok(PageResponse.empty());
             }
         } else {
             // Specific shop - verify access
@@ -84,6 +105,10 @@ public class CustomerLedgerController {
             accessibleShopIds = java.util.List.of(shopId);
         }
 
+        if (shopDataVersionService.checkNotModified(webRequest, userId, accessibleShopIds)) {
+            return null;
+        }
+
         log.debug("Fetching paginated ledger entries for shop ID: {} (accessible shops: {}, page: {}, size: {}, customerId: {}, entryType: {}, startDate: {}, endDate: {}) by user ID: {}",
                 shopId, accessibleShopIds, page, size, customerId, entryType, startDate, endDate, userId);
 
@@ -92,13 +117,15 @@ public class CustomerLedgerController {
         LocalDate startDateTime = parseDate(startDate);
         LocalDate endDateTime = parseDate(endDate);
 
-        Page<CustomerLedger> ledgerEntries = getFilteredLedgerEntries(accessibleShopIds, customerId, entryType, startDateTime, endDateTime, pageable);
-        Page<CustomerLedgerDTO> dtos = customerLedgerService.getCustomerLedgerDTOs(ledgerEntries);
+        Supplier<Page<CustomerLedgerDTO>> query = () -> customerLedgerService.getCustomerLedgerDTOs(
+                getFilteredLedgerEntries(accessibleShopIds, customerId, entryType, startDateTime, endDateTime, pageable));
+        // Paging across all of the user's shops is a reporting query; a single shop stays interactive
+        Page<CustomerLedgerDTO> dtos = shopId == 0 ? reportingBulkheadService.run("all shops ledger page", query) : query.get();
 
         log.info("Retrieved page {} with {} ledger entries for accessible shops: {} (customerId: {}, entryType: {}, startDate: {}, endDate: {})",
                 page, dtos.getContent().size(), accessibleShopIds, customerId, entryType, startDate, endDate);
 
-        return ResponseEntity.ok(dtos);
+        return ResponseEntity.ok(PageResponse.of(dtos));
     }
 
     /**
@@ -112,7 +139,8 @@ public class CustomerLedgerController {
             @RequestParam(required = false) String entryType,
             @RequestParam(required = false) String startDate,
             @RequestParam(required = false) String endDate,
-            Authentication authentication) {
+            Authentication authentication,
+            ServletWebRequest webRequest) {
 
         Long userId = extractUserId(authentication);
         Long actualShopId = (shopId == 0) ? null : shopId;
@@ -120,6 +148,10 @@ public class CustomerLedgerController {
         if (actualShopId != null) {
             verifyUserAccessToShop(actualShopId, userId);
         }
+        List<Long> versionedShopIds = actualShopId != null ? List.of(actualShopId) : getAccessibleShopIdsForUser(userId);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, versionedShopIds)) {
+            return null;
+        }
 
         LocalDate startDateTime = parseDate(startDate);
         LocalDate endDateTime = parseDate(endDate);
@@ -127,7 +159,8 @@ public class CustomerLedgerController {
         log.debug("Fetching ledger summary for shop ID: {} (customerId: {}, entryType: {}, startDate: {}, endDate: {}) by user ID: {}",
                 shopId, customerId, entryType, startDate, endDate, userId);
 
-        LedgerSummaryDTO summary = ledgerService.getLedgerSummary(userId, actualShopId, customerId, entryType, startDateTime, endDateTime);
+        LedgerSummaryDTO summary = reportingBulkheadService.run("ledger summary",
+                () -> ledgerService.getLedgerSummary(userId, actualShopId, customerId, entryType, startDateTime, endDateTime));
 
         log.info("Retrieved ledger summary for shop ID: {} (totalDebit: {}, totalCredit: {}, netBalance: {}, totalEntries: {})",
                 shopId, summary.getTotalDebit(), summary.getTotalCredit(), summary.getNetBalance(), summary.getTotalEntries());
@@ -135,6 +168,58 @@ public class CustomerLedgerController {
         return ResponseEntity.ok(summary);
     }
 
+    /**
+     * Get collections per day and payment mode for a shop (defaults to today), for cash/UPI reconciliation
+     */
+    @GetMapping("/shop/{shopId}/payment-modes")
+    public ResponseEntity<List<PaymentModeTotalDTO>> getPaymentModeTotals(
+            @PathVariable Long shopId,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            Authentication authentication,
+            ServletWebRequest webRequest) {
+
+        Long userId = extractUserId(authentication);
+        verifyUserAccessToShop(shopId, userId);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, List.of(shopId))) {
+            return null;
+        }
+
+        LocalDate start = parseDate(startDate);
+        LocalDate end = parseDate(endDate);
+        LocalDate from = start != null ? start : LocalDate.now();
+        LocalDate to = end != null ? end : from;
+
+        log.debug("Fetching payment mode totals for shop ID: {} from {} to {} by user ID: {}", shopId, from, to, userId);
+        List<PaymentModeTotalDTO> totals = reportingBulkheadService.run("payment mode totals",
+                () -> ledgerService.getPaymentModeTotals(shopId, from, to));
+        log.info("Retrieved {} payment mode totals for shop ID: {} from {} to {}", totals.size(), shopId, from, to);
+        return ResponseEntity.ok(totals);
+    }
+
+    /**
+     * Issue a short-lived ticket for opening the shop's event stream
+     */
+    @PostMapping("/shop/{shopId}/events/ticket")
+    public ResponseEntity<Map<String, Object>> issueShopEventsTicket(@PathVariable Long shopId, Authentication authentication) {
+        String username = extractUsername(authentication);
+        Long userId = shopEventTicketService.verifyStreamAccess(shopId, username);
+        String ticket = shopEventTicketService.issueTicket(shopId, username);
+        log.debug("Issued event stream ticket for shop ID: {} to user ID: {}", shopId, userId);
+        return ResponseEntity.ok(Map.of("ticket", ticket, "expiresInSeconds", shopEventTicketService.getTicketTtlSeconds()));
+    }
+
+    /**
+     * Stream live ledger and balance events for a shop (Server-Sent Events).
+     * Access is checked in its own short transaction, so no pooled connection is held while the stream is open.
+     */
+    @GetMapping(value = "/shop/{shopId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamShopEvents(@PathVariable Long shopId, Authentication authentication) {
+        Long userId = shopEventTicketService.verifyStreamAccess(shopId, extractUsername(authentication));
+        log.debug("Opening ledger event stream for shop ID: {} by user ID: {}", shopId, userId);
+        return shopEventService.subscribe(shopId);
+    }
+
     private LocalDate parseDate(String dateString) {
         if (dateString == null || dateString.trim().isEmpty()) {
             return null;
@@ -212,12 +297,15 @@ public class CustomerLedgerController {
     @PostMapping
     public ResponseEntity<CustomerLedgerDTO> createLedgerEntry(
             @Valid @RequestBody CustomerLedgerDTO ledgerDTO,
+            @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
             Authentication authentication) {
         Long userId = extractUserId(authentication);
         log.info("Creating new ledger entry for customer ID: {} with amount: {} by user ID: {}", ledgerDTO.getCustomerId(), ledgerDTO.getAmount(), userId);
-        CustomerLedgerDTO createdEntry = ledgerService.createLedgerEntry(ledgerDTO, userId);
-        log.info("Ledger entry created successfully with ID: {} by user ID: {}", createdEntry.getId(), userId);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdEntry);
+        return idempotencyService.execute(idempotencyKey, userId, "POST /api/ledger", ledgerDTO, CustomerLedgerDTO.class, () -> {
+            CustomerLedgerDTO createdEntry = ledgerService.createLedgerEntry(ledgerDTO, userId);
+            log.info("Ledger entry created successfully with ID: {} by user ID: {}", createdEntry.getId(), userId);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdEntry);
+        });
     }
 
     /**
@@ -240,15 +328,18 @@ public class CustomerLedgerController {
      * Extract user ID from authentication
      */
     private Long extractUserId(Authentication authentication) {
+        User user = userRepository.findByPhone(extractUsername(authentication))
+                .orElseThrow(() -> new ApplicationException("User not found", "USER_NOT_FOUND"));
+
+        return user.getId();
+    }
+
+    private String extractUsername(Authentication authentication) {
         if (authentication == null || !authentication.isAuthenticated()) {
             log.warn("Unauthorized ledger access attempt");
             throw new ApplicationException("User not authenticated", "UNAUTHORIZED");
         }
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        User user = userRepository.findByPhone(userDetails.getUsername())
-                .orElseThrow(() -> new ApplicationException("User not found", "USER_NOT_FOUND"));
-
-        return user.getId();
+        return ((UserDetails) authentication.getPrincipal()).getUsername();
     }
 
     private void verifyUserAccessToShop(Long shopId, Long userId) {
@@ -1,17 +1,24 @@
 package com.duebook.app.controller;
 
 import com.duebook.app.dto.DashboardMetricsDTO;
+import com.duebook.app.model.Shop;
+import com.duebook.app.repository.ShopRepository;
 import com.duebook.app.service.DashboardService;
+import com.duebook.app.service.ReportingBulkheadService;
+import com.duebook.app.service.ShopDataVersionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import com.duebook.app.model.User;
 import com.duebook.app.repository.UserRepository;
 import com.duebook.app.exception.ApplicationException;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/dashboard")
 @RequiredArgsConstructor
@@ -21,16 +28,23 @@ public class DashboardController {
 
     private final DashboardService dashboardService;
     private final UserRepository userRepository;
+    private final ShopRepository shopRepository;
+    private final ShopDataVersionService shopDataVersionService;
+    private final ReportingBulkheadService reportingBulkheadService;
 
     /**
      * Get comprehensive dashboard metrics for the authenticated user
      */
     @GetMapping("/metrics")
-    public ResponseEntity<DashboardMetricsDTO> getDashboardMetrics(Authentication authentication) {
+    public ResponseEntity<DashboardMetricsDTO> getDashboardMetrics(Authentication authentication, ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        if (shopDataVersionService.checkNotModified(webRequest, userId, getUserShopIds(userId))) {
+            return null;
+        }
         log.info("Fetching dashboard metrics for user ID: {}", userId);
 
-        DashboardMetricsDTO metrics = dashboardService.getDashboardMetrics(userId, null);
+        DashboardMetricsDTO metrics = reportingBulkheadService.run("dashboard metrics",
+                () -> dashboardService.getDashboardMetrics(userId, null));
         log.info("Dashboard metrics retrieved successfully for user ID: {}", userId);
 
         return ResponseEntity.ok(metrics);
@@ -42,16 +56,26 @@ public class DashboardController {
     @GetMapping("/metrics/shop/{shopId}")
     public ResponseEntity<DashboardMetricsDTO> getDashboardMetricsByShop(
             Authentication authentication,
-            @PathVariable Long shopId) {
+            @PathVariable Long shopId,
+            ServletWebRequest webRequest) {
         Long userId = extractUserId(authentication);
+        if (getUserShopIds(userId).contains(shopId)
+                && shopDataVersionService.checkNotModified(webRequest, userId, List.of(shopId))) {
+            return null;
+        }
         log.info("Fetching dashboard metrics for user ID: {} and shop ID: {}", userId, shopId);
 
-        DashboardMetricsDTO metrics = dashboardService.getDashboardMetrics(userId, shopId);
+        DashboardMetricsDTO metrics = reportingBulkheadService.run("shop dashboard metrics",
+                () -> dashboardService.getDashboardMetrics(userId, shopId));
         log.info("Dashboard metrics retrieved successfully for user ID: {} and shop ID: {}", userId, shopId);
 
         return ResponseEntity.ok(metrics);
     }
 
+    private List<Long> getUserShopIds(Long userId) {
+        return shopRepository.findByUserId(userId).stream().map(Shop::getId).toList();
+    }
+
     /**
      * Extract user ID from the authentication token
      */
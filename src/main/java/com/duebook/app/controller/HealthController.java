@@ -0,0 +1,39 @@
+package com.duebook.app.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.LivenessState;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Liveness and readiness probes for the proxy and deploy scripts. Readiness turns 503 as soon
+ * as shutdown begins, so traffic can be moved away while in-flight requests drain.
+ */
+@RestController
+@RequestMapping("/health")
+@RequiredArgsConstructor
+public class HealthController {
+
+    private final ApplicationAvailability applicationAvailability;
+
+    @GetMapping("/liveness")
+    public ResponseEntity<Map<String, String>> liveness() {
+        LivenessState state = applicationAvailability.getLivenessState();
+        HttpStatus status = state == LivenessState.CORRECT ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(Map.of("status", state.name()));
+    }
+
+    @GetMapping("/readiness")
+    public ResponseEntity<Map<String, String>> readiness() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(Map.of("status", state.name()));
+    }
+}
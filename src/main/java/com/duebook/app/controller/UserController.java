@@ -8,6 +8,7 @@ import com.duebook.app.dto.UpdateBasicInfoWithOtpRequest;
 import com.duebook.app.dto.UserProfileDTO;
 import com.duebook.app.service.UserService;
 import com.duebook.app.exception.ApplicationException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -55,7 +56,8 @@ public class UserController {
     @PostMapping("/profile/request-otp-for-primary-email")
     public ResponseEntity<String> requestOtpForPrimaryEmailChange(
             @Valid @RequestBody RequestOtpForEmailChangeRequest request,
-            Authentication authentication) {
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
         String phone = userDetails.getUsername();
 
@@ -63,7 +65,7 @@ public class UserController {
                 .orElseThrow(() -> new ApplicationException("User not found"));
 
         log.info("OTP requested for email change for user ID: {}", user.getId());
-        userService.requestOtpForEmailChange(user.getId(), request);
+        userService.requestOtpForEmailChange(user.getId(), request, httpRequest.getRemoteAddr());
         return ResponseEntity.ok("OTP has been sent to your new email address. Please verify it to update your primary email.");
     }
 
@@ -1,6 +1,7 @@
 package com.duebook.app.dto;
 
 import com.duebook.app.model.CustomerLedger;
+import com.duebook.app.model.Payment;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.Size;
@@ -36,6 +37,12 @@ public class CustomerLedgerDTO {
     @Size(max = 500, message = "Notes cannot exceed 500 characters")
     private String notes;
 
+    // Optional payment details, PAID entries only
+    private Payment.PaymentMode paymentMode;
+
+    @Size(max = 100, message = "Payment reference cannot exceed 100 characters")
+    private String paymentReference;
+
     @NotNull(message = "Entry date is required")
     private LocalDate entryDate;
 
@@ -0,0 +1,17 @@
+package com.duebook.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerLookupDTO {
+    private Long id;
+    private Long shopId;
+    private String name;
+    private String entityName;
+    private String phone;
+    private Boolean isActive;
+}
@@ -0,0 +1,35 @@
+package com.duebook.app.dto;
+
+import com.duebook.app.model.EmailTemplate;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Queued email: recipients plus a template and its variables.
+ * Messages queued before templates were rendered at dispatch carry pre-rendered html instead.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EmailIntent {
+
+    private String[] to;
+    private EmailTemplate template;
+    private Map<String, Object> variables;
+    private String subject;
+    private String html;
+    private String scheduledAt;
+
+    public EmailIntent(String[] to, EmailTemplate template, Map<String, Object> variables) {
+        this.to = to;
+        this.template = template;
+        this.variables = variables;
+    }
+}
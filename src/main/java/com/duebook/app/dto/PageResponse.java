@@ -0,0 +1,32 @@
+package com.duebook.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/**
+ * Stable page envelope for list endpoints, in place of serializing Spring Data's PageImpl
+ * (which also writes pageable and sort metadata that no client reads).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageResponse<T> {
+    private List<T> content;
+    private int number;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+
+    public static <T> PageResponse<T> of(Page<T> page) {
+        return new PageResponse<>(page.getContent(), page.getNumber(), page.getSize(),
+                page.getTotalElements(), page.getTotalPages());
+    }
+
+    public static <T> PageResponse<T> empty() {
+        return new PageResponse<>(List.of(), 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,21 @@
+package com.duebook.app.dto;
+
+import com.duebook.app.model.Payment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Collections for one day and payment mode; mode is absent for PAID entries recorded without one
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaymentModeTotalDTO {
+    private LocalDate entryDate;
+    private Payment.PaymentMode mode;
+    private Long totalEntries;
+    private Double totalAmount;
+}
@@ -0,0 +1,23 @@
+package com.duebook.app.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Live update for a shop, relayed between instances over Redis pub/sub and pushed to clients over SSE
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShopEventDTO {
+
+    public static final String LEDGER_CREATED = "ledger-created";
+    public static final String LEDGER_REVERSED = "ledger-reversed";
+    public static final String BALANCE_CHANGED = "balance-changed";
+
+    private Long shopId;
+    private String type;
+    private JsonNode data;
+}
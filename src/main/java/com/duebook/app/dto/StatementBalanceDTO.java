@@ -0,0 +1,31 @@
+package com.duebook.app.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Customer balance figures for a monthly statement.
+ * changeSinceStart and changeAfterEnd are the net movements of entries dated on/after the
+ * statement's first day and on/after the day after its last day.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementBalanceDTO {
+    private Long customerId;
+    private String name;
+    private String entityName;
+    private String phone;
+    private Double currentBalance;
+    private Double changeSinceStart;
+    private Double changeAfterEnd;
+
+    public double getOpeningBalance() {
+        return currentBalance - changeSinceStart;
+    }
+
+    public double getClosingBalance() {
+        return currentBalance - changeAfterEnd;
+    }
+}
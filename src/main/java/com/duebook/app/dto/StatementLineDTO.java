@@ -0,0 +1,35 @@
+package com.duebook.app.dto;
+
+import com.duebook.app.model.CustomerLedger;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One ledger entry on a monthly statement; referenceType is the type of the entry a reversal undoes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementLineDTO {
+    private Long customerId;
+    private LocalDate entryDate;
+    private CustomerLedger.LedgerEntryType entryType;
+    private Double amount;
+    private CustomerLedger.LedgerEntryType referenceType;
+    private String notes;
+
+    /**
+     * Amount this entry adds to the customer's balance (negative when it reduces it)
+     */
+    public double getBalanceChange() {
+        CustomerLedger.LedgerEntryType effect = entryType == CustomerLedger.LedgerEntryType.REVERSAL ? referenceType : entryType;
+        if (effect == null) {
+            return 0;
+        }
+        double change = effect == CustomerLedger.LedgerEntryType.BAKI ? amount : -amount;
+        return entryType == CustomerLedger.LedgerEntryType.REVERSAL ? -change : change;
+    }
+}
@@ -0,0 +1,14 @@
+package com.duebook.app.exception;
+
+public class RateLimitExceededException extends ApplicationException {
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String message, String errorCode, long retryAfterSeconds) {
+        super(message, errorCode);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
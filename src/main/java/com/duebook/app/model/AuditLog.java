@@ -44,6 +44,10 @@ public class AuditLog {
     @Column(name = "new_value", columnDefinition = "jsonb")
     private String newValue;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "value_encoding", nullable = false)
+    private ValueEncoding valueEncoding = ValueEncoding.FULL;
+
     @Column(name = "performed_at", nullable = false, updatable = false)
     private LocalDateTime performedAt;
 
@@ -51,5 +55,14 @@ public class AuditLog {
     protected void onCreate() {
         performedAt = LocalDateTime.now();
     }
+
+    /**
+     * FULL: old_value and new_value are complete snapshots.
+     * DIFF: new_value is a complete snapshot and old_value is a JSON merge patch
+     * that turns it back into the previous snapshot.
+     */
+    public enum ValueEncoding {
+        FULL, DIFF
+    }
 }
 
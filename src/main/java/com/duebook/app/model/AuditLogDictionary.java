@@ -0,0 +1,30 @@
+package com.duebook.app.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Distinct action / entity type combinations seen in a shop's audit log.
+ * Maintained incrementally by AuditService so audit filter lists do not scan audit_log.
+ */
+@Entity
+@Table(name = "audit_log_dictionary", schema = "duebook_schema")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditLogDictionary {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "shop_id", nullable = false)
+    private Long shopId;
+
+    @Column(nullable = false)
+    private String action;
+
+    @Column(name = "entity_type", nullable = false)
+    private String entityType;
+}
@@ -0,0 +1,29 @@
+package com.duebook.app.model;
+
+/**
+ * Email templates that can be queued for sending.
+ * The queue carries only the constant name and its variables; the HTML is rendered at dispatch.
+ */
+public enum EmailTemplate {
+
+    LOGIN_OTP("email/login-otp", "Your Duebook Login Code"),
+    SECONDARY_EMAIL_OTP("email/add-secondary-email-otp", "Verify Your Secondary Email - Duebook"),
+    PRIMARY_EMAIL_UPDATE_OTP("email/update-primary-email-otp", "Verify Your New Primary Email - Duebook"),
+    MONTHLY_STATEMENTS("email/monthly-statements", "Monthly Customer Statements - Duebook");
+
+    private final String templateName;
+    private final String subject;
+
+    EmailTemplate(String templateName, String subject) {
+        this.templateName = templateName;
+        this.subject = subject;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+}
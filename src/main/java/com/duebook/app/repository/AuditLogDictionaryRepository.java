@@ -0,0 +1,25 @@
+package com.duebook.app.repository;
+
+import com.duebook.app.model.AuditLogDictionary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AuditLogDictionaryRepository extends JpaRepository<AuditLogDictionary, Long> {
+
+    @Modifying
+    @Query(value = "INSERT INTO duebook_schema.audit_log_dictionary (shop_id, action, entity_type) " +
+                   "VALUES (:shopId, :action, :entityType) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("shopId") Long shopId, @Param("action") String action, @Param("entityType") String entityType);
+
+    @Query("SELECT DISTINCT d.action FROM AuditLogDictionary d WHERE d.shopId IN :shopIds ORDER BY d.action ASC")
+    List<String> findDistinctActionsByShopId(@Param("shopIds") List<Long> shopIds);
+
+    @Query("SELECT DISTINCT d.entityType FROM AuditLogDictionary d WHERE d.shopId IN :shopIds ORDER BY d.entityType ASC")
+    List<String> findDistinctEntityTypesByShopId(@Param("shopIds") List<Long> shopIds);
+}
@@ -4,6 +4,7 @@ import com.duebook.app.model.AuditLog;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -28,41 +29,45 @@ public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
             @Param("entityType") String entityType,
             Pageable pageable);
 
-    @Query("SELECT DISTINCT al.action FROM AuditLog al WHERE al.shop.id IN :shopIds  ORDER BY al.action ASC")
-    List<String> findDistinctActionsByShopId(@Param("shopIds") List<Long> shopIds);
-
-    @Query("SELECT DISTINCT al.entityType FROM AuditLog al WHERE al.shop.id IN :shopIds ORDER BY al.entityType ASC")
-    List<String> findDistinctEntityTypesByShopId(@Param("shopIds") List<Long> shopIds);
-
-    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.performedAt >= :startDate AND al.performedAt <= :endDate ORDER BY al.performedAt DESC")
+    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.performedAt >= :startDate AND al.performedAt < :endExclusive ORDER BY al.performedAt DESC")
     Page<AuditLog> findByShopIdAndDateRangeOrderByPerformedAtDesc(
             @Param("shopIds") List<Long> shopIds,
             @Param("startDate") java.time.LocalDateTime startDate,
-            @Param("endDate") java.time.LocalDateTime endDate,
+            @Param("endExclusive") java.time.LocalDateTime endExclusive,
             Pageable pageable);
 
-    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.action = :action AND al.performedAt >= :startDate AND al.performedAt <= :endDate ORDER BY al.performedAt DESC")
+    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.action = :action AND al.performedAt >= :startDate AND al.performedAt < :endExclusive ORDER BY al.performedAt DESC")
     Page<AuditLog> findByShopIdAndActionAndDateRangeOrderByPerformedAtDesc(
             @Param("shopIds") List<Long> shopIds,
             @Param("action") String action,
             @Param("startDate") java.time.LocalDateTime startDate,
-            @Param("endDate") java.time.LocalDateTime endDate,
+            @Param("endExclusive") java.time.LocalDateTime endExclusive,
             Pageable pageable);
 
-    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.entityType = :entityType AND al.performedAt >= :startDate AND al.performedAt <= :endDate ORDER BY al.performedAt DESC")
+    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.entityType = :entityType AND al.performedAt >= :startDate AND al.performedAt < :endExclusive ORDER BY al.performedAt DESC")
     Page<AuditLog> findByShopIdAndEntityTypeAndDateRangeOrderByPerformedAtDesc(
             @Param("shopIds") List<Long> shopIds,
             @Param("entityType") String entityType,
             @Param("startDate") java.time.LocalDateTime startDate,
-            @Param("endDate") java.time.LocalDateTime endDate,
+            @Param("endExclusive") java.time.LocalDateTime endExclusive,
             Pageable pageable);
 
-    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.action = :action AND al.entityType = :entityType AND al.performedAt >= :startDate AND al.performedAt <= :endDate ORDER BY al.performedAt DESC")
+    @Query("SELECT al FROM AuditLog al WHERE al.shop.id IN :shopIds AND al.action = :action AND al.entityType = :entityType AND al.performedAt >= :startDate AND al.performedAt < :endExclusive ORDER BY al.performedAt DESC")
     Page<AuditLog> findByShopIdAndActionAndEntityTypeAndDateRangeOrderByPerformedAtDesc(
             @Param("shopIds") List<Long> shopIds,
             @Param("action") String action,
             @Param("entityType") String entityType,
             @Param("startDate") java.time.LocalDateTime startDate,
-            @Param("endDate") java.time.LocalDateTime endDate,
+            @Param("endExclusive") java.time.LocalDateTime endExclusive,
             Pageable pageable);
+
+    @Query("SELECT DISTINCT al.shop.id FROM AuditLog al WHERE al.performedAt < :cutoff")
+    List<Long> findShopIdsWithEntriesBefore(@Param("cutoff") java.time.LocalDateTime cutoff);
+
+    @Query("SELECT al FROM AuditLog al JOIN FETCH al.performedBy WHERE al.shop.id = :shopId AND al.performedAt < :cutoff ORDER BY al.id ASC")
+    List<AuditLog> findArchivableByShopId(@Param("shopId") Long shopId, @Param("cutoff") java.time.LocalDateTime cutoff, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM AuditLog al WHERE al.shop.id = :shopId AND al.performedAt < :cutoff AND al.id IN :ids")
+    int deleteArchivedByShopId(@Param("shopId") Long shopId, @Param("cutoff") java.time.LocalDateTime cutoff, @Param("ids") List<Long> ids);
 }
@@ -1,16 +1,22 @@
 package com.duebook.app.repository;
 
+import com.duebook.app.dto.StatementBalanceDTO;
+import com.duebook.app.dto.StatementLineDTO;
 import com.duebook.app.model.CustomerLedger;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface CustomerLedgerRepository extends JpaRepository<CustomerLedger, Long> {
@@ -63,5 +69,34 @@ public interface CustomerLedgerRepository extends JpaRepository<CustomerLedger,
 
     @Query("SELECT cl FROM CustomerLedger cl WHERE cl.shop.id IN :shopIds ORDER BY cl.entryDate DESC, cl.createdAt DESC")
     List<CustomerLedger> findByShopIdIn(@Param("shopIds") List<Long> shopIds);
-}
 
+    /**
+     * Current balance of every customer in a shop with the net balance movement of entries dated
+     * on/after the statement start and on/after its end, so opening and closing balances follow
+     * without replaying the whole ledger. A reversal moves the balance opposite to the entry it reverses.
+     */
+    @Query("SELECT new com.duebook.app.dto.StatementBalanceDTO(c.id, c.name, c.entityName, c.phone, c.currentBalance, " +
+           "COALESCE(SUM(CASE WHEN cl.entryType = 'BAKI' THEN cl.amount WHEN cl.entryType = 'PAID' THEN -cl.amount " +
+           "    WHEN ref.entryType = 'PAID' THEN cl.amount WHEN ref.entryType = 'BAKI' THEN -cl.amount ELSE 0.0 END), 0.0), " +
+           "COALESCE(SUM(CASE WHEN cl.entryDate < :endDate THEN 0.0 " +
+           "    WHEN cl.entryType = 'BAKI' THEN cl.amount WHEN cl.entryType = 'PAID' THEN -cl.amount " +
+           "    WHEN ref.entryType = 'PAID' THEN cl.amount WHEN ref.entryType = 'BAKI' THEN -cl.amount ELSE 0.0 END), 0.0)) " +
+           "FROM Customer c " +
+           "LEFT JOIN CustomerLedger cl ON cl.customer.id = c.id AND cl.entryDate >= :startDate " +
+           "LEFT JOIN cl.referenceEntry ref " +
+           "WHERE c.shop.id = :shopId " +
+           "GROUP BY c.id, c.name, c.entityName, c.phone, c.currentBalance " +
+           "ORDER BY c.id")
+    List<StatementBalanceDTO> findStatementBalancesByShopId(@Param("shopId") Long shopId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Ledger lines of a shop dated in [startDate, endDate), grouped by customer in statement order.
+     * Must be consumed inside a transaction and closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.duebook.app.dto.StatementLineDTO(cl.customer.id, cl.entryDate, cl.entryType, cl.amount, ref.entryType, cl.notes) " +
+           "FROM CustomerLedger cl LEFT JOIN cl.referenceEntry ref " +
+           "WHERE cl.shop.id = :shopId AND cl.entryDate >= :startDate AND cl.entryDate < :endDate " +
+           "ORDER BY cl.customer.id, cl.entryDate, cl.createdAt, cl.id")
+    Stream<StatementLineDTO> streamStatementLinesByShopId(@Param("shopId") Long shopId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -1,5 +1,7 @@
 package com.duebook.app.repository;
 
+import com.duebook.app.dto.CustomerLookupDTO;
+import com.duebook.app.dto.CustomerSummaryDTO;
 import com.duebook.app.model.Customer;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -50,5 +52,49 @@ public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     @Query("SELECT c FROM Customer c WHERE c.shop.id IN :shopIds ORDER BY c.createdAt DESC")
     List<Customer> findByShopIdIn(@Param("shopIds") List<Long> shopIds);
-}
 
+    @Query("SELECT new com.duebook.app.dto.CustomerSummaryDTO(" +
+           "COUNT(c), " +
+           "COALESCE(SUM(CASE WHEN c.isActive = true THEN 1L ELSE 0L END), 0L), " +
+           "COALESCE(SUM(c.openingBalance), 0.0), " +
+           "COALESCE(SUM(c.currentBalance), 0.0)) " +
+           "FROM Customer c WHERE c.shop.id = :shopId " +
+           "AND (:hasStatus = false OR c.isActive = :isActive) " +
+           "AND (:hasSearch = false OR LOWER(c.name) LIKE CONCAT('%', :searchLower, '%') " +
+           "OR LOWER(c.entityName) LIKE CONCAT('%', :searchLower, '%') OR c.phone LIKE CONCAT('%', :searchTerm, '%'))")
+    CustomerSummaryDTO summarizeByShopId(@Param("shopId") Long shopId,
+                                         @Param("hasStatus") boolean hasStatus,
+                                         @Param("isActive") boolean isActive,
+                                         @Param("hasSearch") boolean hasSearch,
+                                         @Param("searchTerm") String searchTerm,
+                                         @Param("searchLower") String searchLower);
+
+    @Query("SELECT new com.duebook.app.dto.CustomerSummaryDTO(" +
+           "COUNT(c), " +
+           "COALESCE(SUM(CASE WHEN c.isActive = true THEN 1L ELSE 0L END), 0L), " +
+           "COALESCE(SUM(c.openingBalance), 0.0), " +
+           "COALESCE(SUM(c.currentBalance), 0.0)) " +
+           "FROM Customer c WHERE c.shop.id IN " +
+           "(SELECT su.shop.id FROM ShopUser su WHERE su.user.id = :userId AND su.status = 'ACTIVE') " +
+           "AND (:hasStatus = false OR c.isActive = :isActive) " +
+           "AND (:hasSearch = false OR LOWER(c.name) LIKE CONCAT('%', :searchLower, '%') " +
+           "OR LOWER(c.entityName) LIKE CONCAT('%', :searchLower, '%') OR c.phone LIKE CONCAT('%', :searchTerm, '%'))")
+    CustomerSummaryDTO summarizeByUserId(@Param("userId") Long userId,
+                                         @Param("hasStatus") boolean hasStatus,
+                                         @Param("isActive") boolean isActive,
+                                         @Param("hasSearch") boolean hasSearch,
+                                         @Param("searchTerm") String searchTerm,
+                                         @Param("searchLower") String searchLower);
+
+    @Query("SELECT new com.duebook.app.dto.CustomerLookupDTO(c.id, c.shop.id, c.name, c.entityName, c.phone, c.isActive) " +
+           "FROM Customer c WHERE c.shop.id = :shopId")
+    List<CustomerLookupDTO> findLookupsByShopId(@Param("shopId") Long shopId);
+
+    /**
+     * Customer and acting user for a ledger write, found only when the user is OWNER or STAFF of the customer's shop
+     */
+    @Query("SELECT new com.duebook.app.repository.LedgerWriteContext(c, su.user) FROM Customer c " +
+           "INNER JOIN ShopUser su ON su.shop.id = c.shop.id " +
+           "WHERE c.id = :customerId AND su.user.id = :userId AND su.role IN ('OWNER', 'STAFF')")
+    Optional<LedgerWriteContext> findLedgerWriteContext(@Param("customerId") Long customerId, @Param("userId") Long userId);
+}
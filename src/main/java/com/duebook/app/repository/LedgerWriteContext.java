@@ -0,0 +1,18 @@
+package com.duebook.app.repository;
+
+import com.duebook.app.model.Customer;
+import com.duebook.app.model.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Managed customer and acting user for a ledger write, loaded together with the permission check
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LedgerWriteContext {
+    private Customer customer;
+    private User user;
+}
@@ -0,0 +1,31 @@
+package com.duebook.app.repository;
+
+import com.duebook.app.dto.PaymentModeTotalDTO;
+import com.duebook.app.model.Payment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface PaymentRepository extends JpaRepository<Payment, Long> {
+
+    @Query("SELECT p FROM Payment p WHERE p.ledgerEntry.id IN :ledgerEntryIds")
+    List<Payment> findByLedgerEntryIdIn(@Param("ledgerEntryIds") List<Long> ledgerEntryIds);
+
+    /**
+     * Collections per day and payment mode for a shop. PAID entries recorded without a mode are
+     * grouped under a null mode; payments that were later reversed are left out.
+     */
+    @Query("SELECT new com.duebook.app.dto.PaymentModeTotalDTO(cl.entryDate, p.mode, COUNT(cl), SUM(cl.amount)) " +
+           "FROM CustomerLedger cl LEFT JOIN Payment p ON p.ledgerEntry.id = cl.id " +
+           "WHERE cl.shop.id = :shopId AND cl.entryType = 'PAID' " +
+           "AND cl.entryDate >= :startDate AND cl.entryDate <= :endDate " +
+           "AND NOT EXISTS (SELECT r.id FROM CustomerLedger r WHERE r.referenceEntry.id = cl.id) " +
+           "GROUP BY cl.entryDate, p.mode " +
+           "ORDER BY cl.entryDate, p.mode")
+    List<PaymentModeTotalDTO> sumCollectionsByShopIdPerDayAndMode(@Param("shopId") Long shopId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -28,5 +28,7 @@ public interface ShopRepository extends JpaRepository<Shop, Long> {
            "WHERE su.user.id = :userId AND su.status = 'ACTIVE' " +
            "ORDER BY s.createdAt DESC")
     List<Shop> findByUserId(@Param("userId") Long userId);
-}
 
+    @Query("SELECT s FROM Shop s WHERE s.isActive = true ORDER BY s.id")
+    List<Shop> findAllActive();
+}
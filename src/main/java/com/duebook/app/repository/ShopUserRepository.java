@@ -24,6 +24,9 @@ public interface ShopUserRepository extends JpaRepository<ShopUser, Long> {
     @Query("SELECT su FROM ShopUser su WHERE su.shop.id = :shopId AND su.user.id = :userId AND su.role = 'OWNER'")
     Optional<ShopUser> findOwnerByShopIdAndUserId(@Param("shopId") Long shopId, @Param("userId") Long userId);
 
+    @Query("SELECT su.user.email FROM ShopUser su WHERE su.shop.id = :shopId AND su.status = 'ACTIVE' AND su.role = 'OWNER'")
+    List<String> findActiveOwnerEmailsByShopId(@Param("shopId") Long shopId);
+
     @Query("SELECT COUNT(su) > 0 FROM ShopUser su WHERE su.shop.id = :shopId AND su.user.id = :userId")
     boolean existsByShopIdAndUserId(@Param("shopId") Long shopId, @Param("userId") Long userId);
 }
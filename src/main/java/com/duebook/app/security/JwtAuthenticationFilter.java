@@ -1,5 +1,6 @@
 package com.duebook.app.security;
 
+import com.duebook.app.service.ShopEventTicketService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -13,13 +14,18 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Pattern SHOP_EVENTS_PATH = Pattern.compile("/api/ledger/shop/(\\d{1,18})/events");
+
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final ShopEventTicketService shopEventTicketService;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -38,19 +44,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 // Token is invalid
                 logger.error("JWT Token extraction failed: " + e.getMessage());
             }
+        } else if (request.getParameter("ticket") != null) {
+            // EventSource cannot set headers, so the shop event stream passes a single-use ticket instead
+            Matcher matcher = SHOP_EVENTS_PATH.matcher(request.getRequestURI());
+            if (matcher.matches() && SecurityContextHolder.getContext().getAuthentication() == null) {
+                try {
+                    shopEventTicketService.redeemTicket(request.getParameter("ticket"), Long.valueOf(matcher.group(1)))
+                            .ifPresent(username -> authenticate(request, this.userDetailsService.loadUserByUsername(username)));
+                } catch (Exception e) {
+                    logger.error("Event stream ticket validation failed: " + e.getMessage());
+                }
+            }
         }
 
         if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
 
             if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+                authenticate(request, userDetails);
             }
         }
         chain.doFilter(request, response);
     }
+
+    private void authenticate(HttpServletRequest request, UserDetails userDetails) {
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+    }
 }
 
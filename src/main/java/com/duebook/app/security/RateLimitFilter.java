@@ -0,0 +1,187 @@
+package com.duebook.app.security;
+
+import com.duebook.app.exception.ErrorResponse;
+import com.duebook.app.service.RateLimiterService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles API requests per caller and route class with token buckets.
+ * Callers are identified by the authenticated user, or by client IP before login.
+ * Buckets live in process by default, or in Redis when limits must be shared across instances.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterService rateLimiterService;
+    private final ObjectMapper objectMapper;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Value("${api.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${api.rate-limit.distributed:false}")
+    private boolean distributed;
+
+    @Value("${api.rate-limit.heavy.paths:/api/dashboard/**,/api/ledger,/api/**/summary,/api/audit-logs/**}")
+    private List<String> heavyPaths;
+
+    @Value("${api.rate-limit.light.per-second:20}")
+    private double lightPerSecond;
+
+    @Value("${api.rate-limit.light.burst:40}")
+    private long lightBurst;
+
+    @Value("${api.rate-limit.heavy.per-second:2}")
+    private double heavyPerSecond;
+
+    @Value("${api.rate-limit.heavy.burst:6}")
+    private long heavyBurst;
+
+    @Value("${api.rate-limit.write.per-second:5}")
+    private double writePerSecond;
+
+    @Value("${api.rate-limit.write.burst:10}")
+    private long writeBurst;
+
+    enum RouteClass { LIGHT, HEAVY, WRITE }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/") || "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        RouteClass routeClass = classify(request);
+        String key = callerKey(request) + ":" + routeClass.name().toLowerCase();
+        long waitMillis = tryAcquire(key, routeClass);
+
+        if (waitMillis > 0) {
+            log.warn("Rate limit exceeded for {} on {} {}", key, request.getMethod(), request.getRequestURI());
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999));
+            ErrorResponse error = new ErrorResponse("Too many requests. Please slow down.", "RATE_LIMITED",
+                    HttpStatus.TOO_MANY_REQUESTS.value());
+            error.setPath(request.getRequestURI());
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), error);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private RouteClass classify(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return RouteClass.WRITE;
+        }
+        String path = request.getRequestURI();
+        for (String pattern : heavyPaths) {
+            if (pathMatcher.match(pattern.trim(), path)) {
+                return RouteClass.HEAVY;
+            }
+        }
+        return RouteClass.LIGHT;
+    }
+
+    private String callerKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated() && authentication.getName() != null
+                && !"anonymousUser".equals(authentication.getName())) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private long tryAcquire(String key, RouteClass routeClass) {
+        double perSecond = switch (routeClass) {
+            case LIGHT -> lightPerSecond;
+            case HEAVY -> heavyPerSecond;
+            case WRITE -> writePerSecond;
+        };
+        long burst = switch (routeClass) {
+            case LIGHT -> lightBurst;
+            case HEAVY -> heavyBurst;
+            case WRITE -> writeBurst;
+        };
+
+        if (distributed) {
+            try {
+                return rateLimiterService.tryAcquire("api:" + key, perSecond, burst);
+            } catch (Exception e) {
+                // Fail open to the local bucket rather than rejecting traffic when Redis is unavailable
+                log.warn("Distributed rate limiter unavailable, using local bucket: {}", e.getMessage());
+            }
+        }
+        return buckets.computeIfAbsent(key, k -> new TokenBucket(perSecond, burst)).tryAcquire();
+    }
+
+    /**
+     * Drop local buckets that have been idle long enough to be full again
+     */
+    @Scheduled(fixedDelayString = "${api.rate-limit.cleanup.interval.millis:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isIdleSince(now));
+    }
+
+    private static final class TokenBucket {
+        private final double permitsPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double permitsPerSecond, long burst) {
+            this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = Math.max(1, burst);
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        synchronized long tryAcquire() {
+            refill(System.nanoTime());
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return TimeUnit.NANOSECONDS.toMillis((long) Math.ceil((1 - tokens) / permitsPerNano)) + 1;
+        }
+
+        synchronized boolean isIdleSince(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerNano);
+            lastRefill = now;
+        }
+    }
+}
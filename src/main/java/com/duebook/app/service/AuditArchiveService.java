@@ -0,0 +1,359 @@
+package com.duebook.app.service;
+
+import com.duebook.app.dto.AuditLogDTO;
+import com.duebook.app.exception.ApplicationException;
+import com.duebook.app.model.AuditLog;
+import com.duebook.app.repository.AuditLogRepository;
+import com.duebook.app.util.AuditArchiveBlock;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Moves aged audit rows out of Postgres into compressed per shop/month block files, and serves
+ * date-range audit queries that reach into archived months.
+ *
+ * Blocks live under audit.archive.dir, which must be storage shared by every instance (a shared
+ * volume or a mounted object store bucket), so each instance reads the whole archive. The
+ * archiving job runs on one instance at a time under a cluster lease.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditArchiveService {
+
+    private static final String LOCK_KEY = "duebook-audit-archive:lock";
+
+    private final AuditLogRepository auditLogRepository;
+    private final AuditService auditService;
+    private final TransactionTemplate transactionTemplate;
+    private final ClusterLockService clusterLockService;
+
+    @Value("${audit.archive.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.archive.dir:./archive/audit}")
+    private String archiveDir;
+
+    @Value("${audit.archive.age-months:12}")
+    private int ageMonths;
+
+    @Value("${audit.archive.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${audit.archive.lock.ttl.seconds:60}")
+    private long lockTtlSeconds;
+
+    /**
+     * Archive every audit row older than the configured age, a whole month at a time.
+     * Each batch is written as block files before its rows are deleted from audit_log.
+     */
+    @Scheduled(cron = "${audit.archive.cron.expression:0 45 2 * * ?}")
+    public void archiveAgedAuditLogs() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime cutoff = YearMonth.now().minusMonths(ageMonths).atDay(1).atStartOfDay();
+        Optional<ClusterLockService.Lease> lease = clusterLockService.tryAcquire(LOCK_KEY, Duration.ofSeconds(lockTtlSeconds));
+        if (lease.isEmpty()) {
+            log.info("Audit log archiving is already running on another instance");
+            return;
+        }
+        try (ClusterLockService.Lease held = lease.get()) {
+            List<Long> shopIds = auditLogRepository.findShopIdsWithEntriesBefore(cutoff);
+            for (Long shopId : shopIds) {
+                long archived = archiveShop(shopId, cutoff, held);
+                log.info("Archived {} audit log entries for shop ID: {} older than {}", archived, shopId, cutoff);
+                if (!held.isHeld()) {
+                    log.warn("Lost the audit archive lock; stopping until the next run");
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error archiving audit logs older than {}", cutoff, e);
+        }
+    }
+
+    private long archiveShop(Long shopId, LocalDateTime cutoff, ClusterLockService.Lease lease) {
+        long archived = 0;
+        while (lease.isHeld()) {
+            List<Path> written = new ArrayList<>();
+            Integer moved;
+            try {
+                moved = transactionTemplate.execute(status -> archiveBatch(shopId, cutoff, written));
+            } catch (RuntimeException e) {
+                // The rows are still live; remove this batch's blocks so they are not read twice
+                written.forEach(this::deleteQuietly);
+                throw e;
+            }
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+        }
+        return archived;
+    }
+
+    /**
+     * Write one batch as a block per month, then delete its rows. Rows already present in a
+     * block (a run that stopped between writing and committing the delete) are not written again.
+     * If another instance deleted any of the rows first the delete comes up short and the batch
+     * rolls back.
+     */
+    private int archiveBatch(Long shopId, LocalDateTime cutoff, List<Path> written) {
+        List<AuditLogDTO> batch = auditLogRepository.findArchivableByShopId(shopId, cutoff, PageRequest.of(0, batchSize))
+                .stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<YearMonth, List<AuditLogDTO>> byMonth = batch.stream()
+                .collect(Collectors.groupingBy(r -> YearMonth.from(r.getPerformedAt()), TreeMap::new, Collectors.toList()));
+        try {
+            for (Map.Entry<YearMonth, List<AuditLogDTO>> entry : byMonth.entrySet()) {
+                Set<Long> alreadyArchived = archivedIds(shopId, entry.getKey(), entry.getValue());
+                List<AuditLogDTO> pending = entry.getValue().stream()
+                        .filter(r -> !alreadyArchived.contains(r.getId()))
+                        .collect(Collectors.toList());
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                AuditArchiveBlock block = AuditArchiveBlock.encode(pending);
+                Path file = monthDir(shopId, entry.getKey()).resolve(block.fileName());
+                block.writeTo(file);
+                written.add(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to write audit archive blocks for shop ID: " + shopId, e);
+        }
+
+        List<Long> ids = batch.stream().map(AuditLogDTO::getId).collect(Collectors.toList());
+        int deleted = auditLogRepository.deleteArchivedByShopId(shopId, cutoff, ids);
+        if (deleted != ids.size()) {
+            throw new IllegalStateException("Audit log entries for shop ID: " + shopId + " were archived concurrently");
+        }
+        return deleted;
+    }
+
+    /**
+     * Ids of the given rows that are already in a block, decoding only blocks whose id range overlaps
+     */
+    private Set<Long> archivedIds(Long shopId, YearMonth month, List<AuditLogDTO> rows) throws IOException {
+        long minId = rows.stream().mapToLong(AuditLogDTO::getId).min().orElse(Long.MAX_VALUE);
+        long maxId = rows.stream().mapToLong(AuditLogDTO::getId).max().orElse(Long.MIN_VALUE);
+        Set<Long> ids = new HashSet<>();
+        for (Path file : blockFiles(shopId, month)) {
+            AuditArchiveBlock header = AuditArchiveBlock.readHeader(file);
+            if (header.getMaxAuditId() >= minId && header.getMinAuditId() <= maxId) {
+                AuditArchiveBlock.readRecords(file).forEach(r -> ids.add(r.getId()));
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Check whether any of the shops has archived blocks for the months of [from, to)
+     */
+    public boolean hasArchivedData(List<Long> shopIds, LocalDateTime from, LocalDateTime to) {
+        for (Long shopId : shopIds) {
+            for (YearMonth month : monthsBetween(from, to)) {
+                if (!blockFiles(shopId, month).isEmpty()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Append archived rows after the rows still in Postgres for a date-range request.
+     * Archived rows are always older than live rows, so the live page is the head of the
+     * combined result and archived rows continue it in performed_at descending order.
+     *
+     * Months do not overlap in time, so the archive is paged a month at a time: the total is
+     * counted from block metadata, months before the requested offset are skipped without
+     * decompressing, and only the months that fill the page are read and sorted.
+     */
+    public Page<AuditLogDTO> mergeWithArchive(Page<AuditLogDTO> livePage, List<Long> shopIds, String action, String entityType,
+                                              LocalDateTime from, LocalDateTime to, Pageable pageable) {
+        String actionFilter = action != null && !action.trim().isEmpty() ? action : null;
+        String entityTypeFilter = entityType != null && !entityType.trim().isEmpty() ? entityType : null;
+
+        TreeMap<YearMonth, List<BlockInfo>> months = new TreeMap<>(Comparator.reverseOrder());
+        Map<YearMonth, Long> monthCounts = new TreeMap<>();
+        long archivedTotal = 0;
+        for (BlockInfo block : findBlocks(shopIds, from, to)) {
+            long count = block.containedIn(from, to)
+                    ? block.countMatching(actionFilter, entityTypeFilter)
+                    : readMatching(block, actionFilter, entityTypeFilter, from, to).size();
+            months.computeIfAbsent(block.month(), m -> new ArrayList<>()).add(block);
+            monthCounts.merge(block.month(), count, Long::sum);
+            archivedTotal += count;
+        }
+
+        long liveTotal = livePage.getTotalElements();
+        List<AuditLogDTO> content = new ArrayList<>(livePage.getContent());
+        long skip = Math.max(0, pageable.getOffset() - liveTotal);
+        for (Map.Entry<YearMonth, List<BlockInfo>> month : months.entrySet()) {
+            if (content.size() >= pageable.getPageSize()) {
+                break;
+            }
+            long count = monthCounts.get(month.getKey());
+            if (skip >= count) {
+                skip -= count;
+                continue;
+            }
+            List<AuditLogDTO> rows = new ArrayList<>();
+            for (BlockInfo block : month.getValue()) {
+                rows.addAll(readMatching(block, actionFilter, entityTypeFilter, from, to));
+            }
+            rows.sort(Comparator.comparing(AuditLogDTO::getPerformedAt).thenComparing(AuditLogDTO::getId).reversed());
+            int start = (int) skip;
+            int end = Math.min(rows.size(), start + pageable.getPageSize() - content.size());
+            if (start < end) {
+                content.addAll(rows.subList(start, end));
+            }
+            skip = 0;
+        }
+        return new PageImpl<>(content, pageable, liveTotal + archivedTotal);
+    }
+
+    private List<BlockInfo> findBlocks(List<Long> shopIds, LocalDateTime from, LocalDateTime to) {
+        List<BlockInfo> blocks = new ArrayList<>();
+        try {
+            for (Long shopId : shopIds) {
+                for (YearMonth month : monthsBetween(from, to)) {
+                    for (Path file : blockFiles(shopId, month)) {
+                        AuditArchiveBlock header = AuditArchiveBlock.readHeader(file);
+                        if (!header.getMaxPerformedAt().isBefore(from) && header.getMinPerformedAt().isBefore(to)) {
+                            blocks.add(new BlockInfo(file, month, header.getMinPerformedAt(), header.getMaxPerformedAt(),
+                                    header.getFilterCounts()));
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw archiveReadError(shopIds, e);
+        }
+        return blocks;
+    }
+
+    private List<AuditLogDTO> readMatching(BlockInfo block, String action, String entityType, LocalDateTime from, LocalDateTime to) {
+        List<AuditLogDTO> records;
+        try {
+            records = AuditArchiveBlock.readRecords(block.file());
+        } catch (IOException e) {
+            throw archiveReadError(List.of(), e);
+        }
+        return records.stream()
+                .filter(r -> !r.getPerformedAt().isBefore(from) && r.getPerformedAt().isBefore(to))
+                .filter(r -> action == null || action.equals(r.getAction()))
+                .filter(r -> entityType == null || entityType.equals(r.getEntityType()))
+                .collect(Collectors.toList());
+    }
+
+    private ApplicationException archiveReadError(List<Long> shopIds, IOException e) {
+        log.error("Error reading archived audit logs for shops: {}", shopIds, e);
+        return new ApplicationException("Unable to read archived audit logs", "AUDIT_ARCHIVE_ERROR");
+    }
+
+    private List<Path> blockFiles(Long shopId, YearMonth month) {
+        Path directory = monthDir(shopId, month);
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(AuditArchiveBlock.FILE_SUFFIX)).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to list audit archive " + directory, e);
+        }
+    }
+
+    private Path monthDir(Long shopId, YearMonth month) {
+        return Paths.get(archiveDir, "shop-" + shopId, month.toString());
+    }
+
+    private List<YearMonth> monthsBetween(LocalDateTime from, LocalDateTime to) {
+        List<YearMonth> months = new ArrayList<>();
+        YearMonth last = YearMonth.from(to.minusNanos(1));
+        for (YearMonth month = YearMonth.from(from); !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not remove audit archive block {}; its rows are skipped on the next run: {}", file, e.getMessage());
+        }
+    }
+
+    private AuditLogDTO convertToDTO(AuditLog auditLog) {
+        AuditLogDTO dto = new AuditLogDTO();
+        dto.setId(auditLog.getId());
+        dto.setShopId(auditLog.getShop().getId());
+        dto.setEntityType(auditLog.getEntityType());
+        dto.setEntityId(auditLog.getEntityId());
+        dto.setAction(auditLog.getAction());
+        dto.setPerformedById(auditLog.getPerformedBy().getId());
+        dto.setPerformedByName(auditLog.getPerformedBy().getName());
+        // Archived rows always hold full snapshots
+        dto.setOldValue(auditService.resolveOldValue(auditLog));
+        dto.setNewValue(auditLog.getNewValue());
+        dto.setPerformedAt(auditLog.getPerformedAt());
+        return dto;
+    }
+
+    /**
+     * Metadata of a stored block, enough to count its rows without decompressing it
+     */
+    private record BlockInfo(Path file, YearMonth month, LocalDateTime minPerformedAt, LocalDateTime maxPerformedAt,
+                             Map<String, Integer> filterCounts) {
+
+        boolean containedIn(LocalDateTime from, LocalDateTime to) {
+            return !minPerformedAt.isBefore(from) && maxPerformedAt.isBefore(to);
+        }
+
+        long countMatching(String action, String entityType) {
+            long count = 0;
+            for (Map.Entry<String, Integer> entry : filterCounts.entrySet()) {
+                int separator = entry.getKey().indexOf('|');
+                if ((action == null || action.equals(entry.getKey().substring(0, separator)))
+                        && (entityType == null || entityType.equals(entry.getKey().substring(separator + 1)))) {
+                    count += entry.getValue();
+                }
+            }
+            return count;
+        }
+    }
+}
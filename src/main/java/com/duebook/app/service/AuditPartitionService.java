@@ -0,0 +1,171 @@
+package com.duebook.app.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Maintains the monthly range partitions of audit_log.
+ * Creates partitions ahead of the current month and detaches (optionally drops)
+ * partitions that fall outside the retention window. Rows that landed in the default
+ * partition because their month had none are moved into the month's partition when it is created.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AuditPartitionService {
+
+    private static final String SCHEMA = "duebook_schema";
+    private static final String PARENT_TABLE = "audit_log";
+    private static final String PARTITION_PREFIX = PARENT_TABLE + "_p";
+    private static final String DEFAULT_PARTITION = PARENT_TABLE + "_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${audit.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${audit.partition.months-ahead:3}")
+    private int monthsAhead;
+
+    @Value("${audit.partition.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${audit.partition.drop-detached:false}")
+    private boolean dropDetached;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${audit.partition.maintenance.cron.expression:0 15 2 * * ?}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            if (!isPartitioned()) {
+                log.warn("{}.{} is not a partitioned table; skipping partition maintenance", SCHEMA, PARENT_TABLE);
+                return;
+            }
+            YearMonth current = YearMonth.now();
+            SortedSet<YearMonth> months = new TreeSet<>(monthsInDefaultPartition());
+            for (int i = 0; i <= monthsAhead; i++) {
+                months.add(current.plusMonths(i));
+            }
+            for (YearMonth month : months) {
+                createPartition(month);
+            }
+            if (retentionMonths > 0) {
+                detachExpiredPartitions(current.minusMonths(retentionMonths));
+            }
+        } catch (Exception e) {
+            log.error("Error maintaining audit log partitions", e);
+        }
+    }
+
+    private boolean isPartitioned() {
+        List<String> kinds = jdbcTemplate.queryForList(
+                "SELECT c.relkind::text FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+                "WHERE n.nspname = ? AND c.relname = ?", String.class, SCHEMA, PARENT_TABLE);
+        return !kinds.isEmpty() && "p".equals(kinds.get(0));
+    }
+
+    private List<YearMonth> monthsInDefaultPartition() {
+        if (!tableExists(DEFAULT_PARTITION)) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList(
+                "SELECT DISTINCT date_trunc('month', performed_at)::date FROM " + SCHEMA + "." + DEFAULT_PARTITION, Date.class)
+                .stream().map(date -> YearMonth.from(date.toLocalDate())).toList();
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        if (tableExists(partition)) {
+            return;
+        }
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.plusMonths(1).atDay(1);
+        String bounds = " FOR VALUES FROM ('" + from + "') TO ('" + to + "')";
+        if (!tableExists(DEFAULT_PARTITION)) {
+            jdbcTemplate.execute("CREATE TABLE " + SCHEMA + "." + partition + " PARTITION OF " + SCHEMA + "." + PARENT_TABLE + bounds);
+            log.info("Created audit log partition {} for [{}, {})", partition, from, to);
+            return;
+        }
+        // A new range may not overlap rows already in the default partition, so build the partition
+        // standalone, move the month's rows into it and attach it, all in one transaction
+        Integer moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.execute("CREATE TABLE " + SCHEMA + "." + partition +
+                    " (LIKE " + SCHEMA + "." + PARENT_TABLE + " INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            int rows = jdbcTemplate.update("WITH moved AS (DELETE FROM " + SCHEMA + "." + DEFAULT_PARTITION +
+                    " WHERE performed_at >= ? AND performed_at < ? RETURNING *) " +
+                    "INSERT INTO " + SCHEMA + "." + partition + " SELECT * FROM moved", from, to);
+            jdbcTemplate.execute("ALTER TABLE " + SCHEMA + "." + PARENT_TABLE + " ATTACH PARTITION " + SCHEMA + "." + partition + bounds);
+            return rows;
+        });
+        log.info("Created audit log partition {} for [{}, {}), moving {} rows from the default partition", partition, from, to, moved);
+    }
+
+    private boolean tableExists(String table) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT to_regclass(?) IS NOT NULL", Boolean.class, SCHEMA + "." + table));
+    }
+
+    /**
+     * Detach every monthly partition older than the given cutoff month
+     */
+    private void detachExpiredPartitions(YearMonth cutoff) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT child.relname::text FROM pg_inherits i " +
+                "JOIN pg_class parent ON parent.oid = i.inhparent " +
+                "JOIN pg_class child ON child.oid = i.inhrelid " +
+                "JOIN pg_namespace n ON n.oid = parent.relnamespace " +
+                "WHERE n.nspname = ? AND parent.relname = ?", String.class, SCHEMA, PARENT_TABLE);
+
+        for (String partition : partitions) {
+            YearMonth month = parsePartitionMonth(partition);
+            if (month == null || !month.isBefore(cutoff)) {
+                continue;
+            }
+            jdbcTemplate.execute("ALTER TABLE " + SCHEMA + "." + PARENT_TABLE + " DETACH PARTITION " + SCHEMA + "." + partition);
+            log.info("Detached audit log partition {} (older than {} months)", partition, retentionMonths);
+            if (dropDetached) {
+                jdbcTemplate.execute("DROP TABLE " + SCHEMA + "." + partition);
+                log.info("Dropped detached audit log partition {}", partition);
+            }
+        }
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    static YearMonth parsePartitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -4,17 +4,32 @@ import com.duebook.app.model.AuditLog;
 import com.duebook.app.model.AuditAction;
 import com.duebook.app.model.Shop;
 import com.duebook.app.model.User;
+import com.duebook.app.repository.AuditLogDictionaryRepository;
 import com.duebook.app.repository.AuditLogRepository;
 import com.duebook.app.repository.ShopRepository;
 import com.duebook.app.repository.UserRepository;
+import com.duebook.app.util.JsonMergePatch;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -22,11 +37,121 @@ import java.util.UUID;
 @Transactional
 public class AuditService {
 
+    private static final String INSERT_AUDIT_LOG = "INSERT INTO duebook_schema.audit_log " +
+            "(shop_id, entity_type, entity_id, action, performed_by, old_value, new_value, value_encoding, performed_at) VALUES ";
+    private static final String INSERT_AUDIT_LOG_ROW = "(?, ?, ?, ?, ?, CAST(? AS jsonb), CAST(? AS jsonb), ?, ?)";
+
     private final AuditLogRepository auditLogRepository;
+    private final AuditLogDictionaryRepository auditLogDictionaryRepository;
     private final UserRepository userRepository;
     private final ShopRepository shopRepository;
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${audit.value.encoding:DIFF}")
+    private AuditLog.ValueEncoding valueEncoding;
+
+    // shopId|action|entityType combinations known to be in audit_log_dictionary
+    private final Set<String> knownDictionaryEntries = ConcurrentHashMap.newKeySet();
 
     public void logAudit(Long shopId, String entityType, UUID entityId, AuditAction action, Long performedBy, String oldValue, String newValue) {
+        saveAudit(shopId, entityType, entityId, action, performedBy, oldValue, newValue, AuditLog.ValueEncoding.FULL);
+    }
+
+    /**
+     * Log audit for a change given the before and after objects.
+     * In DIFF mode an update stores the full new snapshot plus only the fields that changed
+     * from the old one; creations and FULL mode store complete snapshots as before.
+     */
+    public void logAuditChange(Long shopId, String entityType, Long entityId, AuditAction action, Long performedBy, Object oldValue, Object newValue) {
+        try {
+            EncodedValues values = encode(oldValue, newValue);
+            saveAudit(shopId, entityType, convertLongToUUID(entityId), action, performedBy, values.oldValue(), values.newValue(), values.encoding());
+        } catch (Exception e) {
+            log.error("Error logging audit for " + entityType + " operation: " + action.name(), e);
+        }
+    }
+
+    /**
+     * A change to be audited together with the other changes of the same write
+     */
+    public record Change(Long shopId, String entityType, Long entityId, AuditAction action, Long performedBy,
+                         Object oldValue, Object newValue) {
+    }
+
+    /**
+     * Log the changes of one write with a single multi-row insert. Shop and user ids are written
+     * as given, so callers pass ids they have already read or written in the same transaction.
+     */
+    public void logAuditChanges(List<Change> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            LocalDateTime performedAt = LocalDateTime.now();
+            StringJoiner rows = new StringJoiner(", ");
+            List<Object> args = new ArrayList<>(changes.size() * 9);
+            for (Change change : changes) {
+                EncodedValues values = encode(change.oldValue(), change.newValue());
+                rows.add(INSERT_AUDIT_LOG_ROW);
+                args.add(change.shopId());
+                args.add(change.entityType());
+                args.add(convertLongToUUID(change.entityId()));
+                args.add(change.action().name());
+                args.add(change.performedBy());
+                args.add(values.oldValue());
+                args.add(values.newValue());
+                args.add(values.encoding().name());
+                args.add(performedAt);
+            }
+            jdbcTemplate.update(INSERT_AUDIT_LOG + rows, args.toArray());
+            for (Change change : changes) {
+                recordDictionaryEntry(change.shopId(), change.action().name(), change.entityType());
+            }
+        } catch (Exception e) {
+            log.error("Error logging audit for {} changes", changes.size(), e);
+        }
+    }
+
+    /**
+     * Serialize the before and after objects using the configured value encoding
+     */
+    private EncodedValues encode(Object oldValue, Object newValue) throws JsonProcessingException {
+        if (valueEncoding == AuditLog.ValueEncoding.DIFF && oldValue != null && newValue != null) {
+            JsonNode oldNode = objectMapper.valueToTree(oldValue);
+            JsonNode newNode = objectMapper.valueToTree(newValue);
+            return new EncodedValues(objectMapper.writeValueAsString(JsonMergePatch.diff(newNode, oldNode)),
+                    objectMapper.writeValueAsString(newNode), AuditLog.ValueEncoding.DIFF);
+        }
+        String oldVal = oldValue != null ? objectMapper.writeValueAsString(oldValue) : null;
+        String newVal = newValue != null ? objectMapper.writeValueAsString(newValue) : null;
+        return new EncodedValues(oldVal, newVal, AuditLog.ValueEncoding.FULL);
+    }
+
+    private record EncodedValues(String oldValue, String newValue, AuditLog.ValueEncoding encoding) {
+    }
+
+    /**
+     * Full old snapshot of an audit entry, reconstructed from the stored patch for DIFF entries.
+     * Pure JSON work called once per listed row, so it must not open a transaction of its own.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public String resolveOldValue(AuditLog auditLog) {
+        if (auditLog.getValueEncoding() != AuditLog.ValueEncoding.DIFF || auditLog.getOldValue() == null || auditLog.getNewValue() == null) {
+            return auditLog.getOldValue();
+        }
+        try {
+            JsonNode newNode = objectMapper.readTree(auditLog.getNewValue());
+            JsonNode patch = objectMapper.readTree(auditLog.getOldValue());
+            return objectMapper.writeValueAsString(JsonMergePatch.apply(newNode, patch));
+        } catch (Exception e) {
+            log.error("Error reconstructing old value for audit log ID: {}", auditLog.getId(), e);
+            return auditLog.getOldValue();
+        }
+    }
+
+    private void saveAudit(Long shopId, String entityType, UUID entityId, AuditAction action, Long performedBy,
+                           String oldValue, String newValue, AuditLog.ValueEncoding encoding) {
         try {
             Optional<User> user = userRepository.findById(performedBy);
             Optional<Shop> shop = shopRepository.findById(shopId);
@@ -44,9 +169,11 @@ public class AuditService {
             auditLog.setPerformedBy(user.get());
             auditLog.setOldValue(oldValue);
             auditLog.setNewValue(newValue);
+            auditLog.setValueEncoding(encoding);
             auditLog.setPerformedAt(LocalDateTime.now());
 
             auditLogRepository.save(auditLog);
+            recordDictionaryEntry(shopId, action.name(), entityType);
             log.debug("Audit logged: {} - {} on {} with ID {}", action.name(), entityType, entityType, entityId);
         } catch (Exception e) {
             log.error("Error logging audit for action: {}", action.name(), e);
@@ -58,6 +185,29 @@ public class AuditService {
         logAudit(shopId, entityType, convertLongToUUID(entityId), action, performedBy, oldValue, newValue);
     }
 
+    /**
+     * Add the action / entity type combination to the shop's audit dictionary the first time it is seen
+     */
+    private void recordDictionaryEntry(Long shopId, String action, String entityType) {
+        String key = shopId + "|" + action + "|" + entityType;
+        if (knownDictionaryEntries.contains(key)) {
+            return;
+        }
+        auditLogDictionaryRepository.insertIfAbsent(shopId, action, entityType);
+
+        // Only remember the entry once it is committed, so a rolled back insert is retried
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    knownDictionaryEntries.add(key);
+                }
+            });
+        } else {
+            knownDictionaryEntries.add(key);
+        }
+    }
+
     private UUID convertLongToUUID(Long id) {
         if (id == null) {
             return null;
@@ -72,7 +72,10 @@ public class AuthService {
         return new AuthResponse(token, user.getId(), user.getName(), user.getPhone(), user.getEmail());
     }
 
-    public void requestOtp(String email) {
+    public void requestOtp(String email, String clientIp) {
+        // Limit OTP requests per email and client IP before touching the database
+        otpService.checkIssueLimit(email, clientIp);
+
         // Verify user exists
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new RuntimeException("User not found"));
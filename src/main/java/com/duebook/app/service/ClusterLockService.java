@@ -0,0 +1,122 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.BackgroundThreads;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide leases for scheduled jobs that must run on one instance at a time.
+ *
+ * A lease is a Redis key holding the owner's token with a short TTL that a heartbeat keeps
+ * extending while the owner is alive. If the owning instance dies the key expires within one
+ * TTL, so another instance can take over instead of waiting for a long job-sized timeout.
+ */
+@Service
+@Slf4j
+public class ClusterLockService {
+
+    private static final DefaultRedisScript<Long> REFRESH_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('PEXPIRE', KEYS[1], ARGV[2]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then " +
+            "  return redis.call('DEL', KEYS[1]) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final ScheduledExecutorService heartbeats;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public ClusterLockService(StringRedisTemplate redisTemplate, BackgroundThreads backgroundThreads) {
+        this.redisTemplate = redisTemplate;
+        this.heartbeats = Executors.newSingleThreadScheduledExecutor(backgroundThreads.factory("duebook-lock-heartbeat-"));
+    }
+
+    /**
+     * Take the lease if no live instance holds it; empty when it is held elsewhere or Redis is unavailable
+     */
+    public Optional<Lease> tryAcquire(String key, Duration ttl) {
+        String token = instanceId + ":" + UUID.randomUUID();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, ttl))) {
+                return Optional.empty();
+            }
+        } catch (Exception e) {
+            log.warn("Could not acquire cluster lock {}: {}", key, e.getMessage());
+            return Optional.empty();
+        }
+        Lease lease = new Lease(key, token);
+        long periodMillis = Math.max(1000, ttl.toMillis() / 3);
+        lease.heartbeat = heartbeats.scheduleWithFixedDelay(() -> lease.refresh(ttl), periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        return Optional.of(lease);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+    }
+
+    /**
+     * A held lease; check {@link #isHeld()} between units of work and close it when done
+     */
+    public final class Lease implements AutoCloseable {
+        private final String key;
+        private final String token;
+        private volatile ScheduledFuture<?> heartbeat;
+        private volatile boolean lost;
+
+        private Lease(String key, String token) {
+            this.key = key;
+            this.token = token;
+        }
+
+        /**
+         * False once a heartbeat found the key expired or taken over by another instance
+         */
+        public boolean isHeld() {
+            return !lost;
+        }
+
+        private void refresh(Duration ttl) {
+            try {
+                Long refreshed = redisTemplate.execute(REFRESH_SCRIPT, List.of(key), token, String.valueOf(ttl.toMillis()));
+                if (refreshed == null || refreshed == 0) {
+                    lost = true;
+                    heartbeat.cancel(false);
+                    log.warn("Cluster lock {} was lost; another instance may have taken over", key);
+                }
+            } catch (Exception e) {
+                // Keep trying; the key only expires if Redis stays unreachable for a whole TTL
+                log.warn("Could not refresh cluster lock {}: {}", key, e.getMessage());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (heartbeat != null) {
+                heartbeat.cancel(false);
+            }
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            } catch (Exception e) {
+                log.warn("Could not release cluster lock {}; it expires on its own: {}", key, e.getMessage());
+            }
+        }
+    }
+}
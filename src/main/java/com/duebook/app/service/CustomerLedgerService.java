@@ -1,17 +1,20 @@
 package com.duebook.app.service;
 
 import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.dto.ShopEventDTO;
 import com.duebook.app.dto.CustomerDTO;
 import com.duebook.app.dto.LedgerSummaryDTO;
+import com.duebook.app.dto.PaymentModeTotalDTO;
 import com.duebook.app.dto.UserDTO;
 import com.duebook.app.exception.ApplicationException;
 import com.duebook.app.model.*;
 import com.duebook.app.repository.CustomerLedgerRepository;
 import com.duebook.app.repository.CustomerRepository;
+import com.duebook.app.repository.LedgerWriteContext;
+import com.duebook.app.repository.PaymentRepository;
 import com.duebook.app.repository.ShopRepository;
 import com.duebook.app.repository.UserRepository;
 import com.duebook.app.repository.ShopUserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -36,8 +39,10 @@ public class CustomerLedgerService {
     private final ShopRepository shopRepository;
     private final UserRepository userRepository;
     private final ShopUserRepository shopUserRepository;
+    private final PaymentRepository paymentRepository;
     private final AuditService auditService;
-    private final ObjectMapper objectMapper;
+    private final ShopDataVersionService shopDataVersionService;
+    private final ShopEventService shopEventService;
 
     /**
      * Get all ledger entries for the authenticated user
@@ -57,7 +62,9 @@ public class CustomerLedgerService {
     public CustomerLedgerDTO getLedgerEntryById(Long ledgerId, Long userId) {
         CustomerLedger entry = ledgerRepository.findByIdAndUserId(ledgerId, userId)
                 .orElseThrow(() -> new ApplicationException("Ledger entry not found or you don't have access to it", "LEDGER_NOT_FOUND"));
-        return convertToDTO(entry);
+        CustomerLedgerDTO dto = convertToDTO(entry);
+        attachPayments(List.of(dto));
+        return dto;
     }
 
     /**
@@ -65,18 +72,17 @@ public class CustomerLedgerService {
      */
     @Transactional
     public CustomerLedgerDTO createLedgerEntry(CustomerLedgerDTO ledgerDTO, Long userId) {
-        // Verify customer exists and get it
-        Customer customer = customerRepository.findById(ledgerDTO.getCustomerId())
-                .orElseThrow(() -> new ApplicationException("Customer not found", "CUSTOMER_NOT_FOUND"));
-
+        validatePaymentDetails(ledgerDTO);
+
+        // One query loads the customer and the acting user and checks the user is OWNER or STAFF of the
+        // customer's shop; the shop itself stays an unloaded reference
+        LedgerWriteContext context = customerRepository.findLedgerWriteContext(ledgerDTO.getCustomerId(), userId)
+                .orElseThrow(() -> customerRepository.existsById(ledgerDTO.getCustomerId())
+                        ? new ApplicationException("You don't have permission to create ledger entries", "FORBIDDEN")
+                        : new ApplicationException("Customer not found", "CUSTOMER_NOT_FOUND"));
+        Customer customer = context.getCustomer();
+        User user = context.getUser();
         Shop shop = customer.getShop();
-        if (!isOwnerOrStaff(shop.getId(), userId)) {
-            throw new ApplicationException("You don't have permission to create ledger entries", "FORBIDDEN");
-        }
-
-        // Verify user exists
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ApplicationException("User not found", "USER_NOT_FOUND"));
 
         // Create the ledger entry
         CustomerLedger ledger = new CustomerLedger();
@@ -91,14 +97,30 @@ public class CustomerLedgerService {
         ledger.setCreatedAt(LocalDateTime.now());
 
         // Update customer's current balance
-        updateCustomerBalance(customer, ledger);
+        AuditService.Change balanceAdjusted = updateCustomerBalance(customer, ledger, userId);
 
         CustomerLedger savedLedger = ledgerRepository.save(ledger);
+        CustomerLedgerDTO createdDTO = convertToDTO(savedLedger);
+
+        // Payment details are written in the same transaction as the PAID entry
+        if (ledgerDTO.getPaymentMode() != null) {
+            Payment payment = new Payment();
+            payment.setLedgerEntry(savedLedger);
+            payment.setMode(ledgerDTO.getPaymentMode());
+            payment.setReferenceNumber(ledgerDTO.getPaymentReference());
+            paymentRepository.save(payment);
+            createdDTO.setPaymentMode(payment.getMode());
+            createdDTO.setPaymentReference(payment.getReferenceNumber());
+        }
 
-        // Audit log: Ledger entry created
-        logAudit(shop.getId(), AuditAction.LEDGER.name(), savedLedger.getId(), AuditAction.LEDGER_ENTRY_CREATED, userId, null, convertToDTO(savedLedger));
+        // Audit log: Customer balance adjusted and ledger entry created, written together
+        auditService.logAuditChanges(List.of(balanceAdjusted,
+                new AuditService.Change(shop.getId(), AuditAction.LEDGER.name(), savedLedger.getId(), AuditAction.LEDGER_ENTRY_CREATED, userId, null, createdDTO)));
+        shopDataVersionService.bump(shop.getId());
 
-        return convertToDTO(savedLedger);
+        shopEventService.publish(shop.getId(), ShopEventDTO.LEDGER_CREATED, createdDTO);
+        publishBalanceChanged(customer);
+        return createdDTO;
     }
 
     /**
@@ -157,8 +179,12 @@ public class CustomerLedgerService {
 
         // Audit log: Ledger reversal
         logAudit(originalEntry.getShop().getId(), AuditAction.LEDGER.name(), savedReversal.getId(), AuditAction.LEDGER_REVERSAL, userId, convertToDTO(originalEntry), convertToDTO(savedReversal));
+        shopDataVersionService.bump(shop.getId());
 
-        return convertToDTO(savedReversal);
+        CustomerLedgerDTO reversalDTO = convertToDTO(savedReversal);
+        shopEventService.publish(shop.getId(), ShopEventDTO.LEDGER_REVERSED, reversalDTO);
+        publishBalanceChanged(customer);
+        return reversalDTO;
     }
 
     /**
@@ -283,11 +309,63 @@ public class CustomerLedgerService {
     }
 
 
+    /**
+     * Get collections per day and payment mode for a shop, for cash/UPI reconciliation
+     */
+    @Transactional(readOnly = true)
+    public List<PaymentModeTotalDTO> getPaymentModeTotals(Long shopId, LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new ApplicationException("Start date must not be after end date", "INVALID_DATE_RANGE");
+        }
+        return paymentRepository.sumCollectionsByShopIdPerDayAndMode(shopId, startDate, endDate);
+    }
+
+    /**
+     * Payment details are only recorded on PAID entries, and a reference needs a mode
+     */
+    private void validatePaymentDetails(CustomerLedgerDTO ledgerDTO) {
+        boolean hasReference = ledgerDTO.getPaymentReference() != null && !ledgerDTO.getPaymentReference().isBlank();
+        if (ledgerDTO.getPaymentMode() == null) {
+            if (hasReference) {
+                throw new ApplicationException("Payment mode is required when a payment reference is given", "INVALID_PAYMENT_DETAILS");
+            }
+            return;
+        }
+        if (ledgerDTO.getEntryType() != CustomerLedger.LedgerEntryType.PAID) {
+            throw new ApplicationException("Payment mode can only be recorded on PAID entries", "INVALID_PAYMENT_DETAILS");
+        }
+        if (!hasReference) {
+            ledgerDTO.setPaymentReference(null);
+        }
+    }
+
+    /**
+     * Fill in payment details for PAID entries with one query for the whole list
+     */
+    private void attachPayments(List<CustomerLedgerDTO> entries) {
+        List<Long> paidIds = entries.stream()
+                .filter(e -> e.getEntryType() == CustomerLedger.LedgerEntryType.PAID)
+                .map(CustomerLedgerDTO::getId)
+                .toList();
+        if (paidIds.isEmpty()) {
+            return;
+        }
+        Map<Long, Payment> payments = paymentRepository.findByLedgerEntryIdIn(paidIds).stream()
+                .collect(Collectors.toMap(p -> p.getLedgerEntry().getId(), p -> p, (a, b) -> a));
+        for (CustomerLedgerDTO entry : entries) {
+            Payment payment = payments.get(entry.getId());
+            if (payment != null) {
+                entry.setPaymentMode(payment.getMode());
+                entry.setPaymentReference(payment.getReferenceNumber());
+            }
+        }
+    }
+
     /**
      * Update customer's current balance based on ledger entry
-     * Tracks balance adjustments for audit purposes
+     * Returns the balance adjustment for the audit log; the customer row is flushed at commit
      */
-    private void updateCustomerBalance(Customer customer, CustomerLedger ledger) {
+    private AuditService.Change updateCustomerBalance(Customer customer, CustomerLedger ledger, Long userId) {
         Double oldBalance = customer.getCurrentBalance();
         Double currentBalance = oldBalance;
 
@@ -302,20 +380,28 @@ public class CustomerLedgerService {
         ledger.setBalanceAfter(currentBalance);
         customer.setCurrentBalance(currentBalance);
         customer.setUpdatedAt(LocalDateTime.now());
-        customerRepository.save(customer);
 
-        // Audit log: Customer balance adjusted
         Map<String, Object> oldBalanceMap = new HashMap<>();
         oldBalanceMap.put("balance", oldBalance);
         Map<String, Object> newBalanceMap = new HashMap<>();
         newBalanceMap.put("balance", currentBalance);
         newBalanceMap.put("amount", ledger.getAmount());
         newBalanceMap.put("type", ledger.getEntryType().name());
-        logAudit(customer.getShop().getId(), AuditAction.CUSTOMER.name(), customer.getId(), AuditAction.LEDGER_BALANCE_ADJUSTED, ledger.getCreatedByUser().getId(), oldBalanceMap, newBalanceMap);
+        return new AuditService.Change(customer.getShop().getId(), AuditAction.CUSTOMER.name(), customer.getId(),
+                AuditAction.LEDGER_BALANCE_ADJUSTED, userId, oldBalanceMap, newBalanceMap);
+    }
+
+    private void publishBalanceChanged(Customer customer) {
+        Map<String, Object> balance = new HashMap<>();
+        balance.put("customerId", customer.getId());
+        balance.put("currentBalance", customer.getCurrentBalance());
+        shopEventService.publish(customer.getShop().getId(), ShopEventDTO.BALANCE_CHANGED, balance);
     }
 
     public Page<CustomerLedgerDTO> getCustomerLedgerDTOs(Page<CustomerLedger> ledgerEntries) {
-       return ledgerEntries.map(this::convertToDTO);
+       Page<CustomerLedgerDTO> dtos = ledgerEntries.map(this::convertToDTO);
+       attachPayments(dtos.getContent());
+       return dtos;
     }
 
     /**
@@ -369,12 +455,6 @@ public class CustomerLedgerService {
      * Log audit for ledger and customer operations
      */
     private void logAudit(Long shopId, String entityType, Long entityId, AuditAction action, Long userId, Object oldValue, Object newValue) {
-        try {
-            String oldVal = oldValue != null ? objectMapper.writeValueAsString(oldValue) : null;
-            String newVal = newValue != null ? objectMapper.writeValueAsString(newValue) : null;
-            auditService.logAuditLongId(shopId, entityType, entityId, action, userId, oldVal, newVal);
-        } catch (Exception e) {
-            log.error("Error logging audit for " + entityType + " operation: " + action.name(), e);
-        }
+        auditService.logAuditChange(shopId, entityType, entityId, action, userId, oldValue, newValue);
     }
 }
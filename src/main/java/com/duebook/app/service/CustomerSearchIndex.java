@@ -0,0 +1,431 @@
+package com.duebook.app.service;
+
+import com.duebook.app.dto.CustomerLookupDTO;
+import com.duebook.app.model.Customer;
+import com.duebook.app.repository.CustomerRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-process typeahead index of customers, one immutable snapshot per shop.
+ * Snapshots are built lazily on first lookup, patched copy-on-write (binary insert or removal)
+ * when a customer is created or updated, and evicted least-recently-used once the indexed
+ * customer budget is exceeded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CustomerSearchIndex {
+
+    private final CustomerRepository customerRepository;
+
+    @Value("${customer.typeahead.max-indexed-customers:200000}")
+    private int maxIndexedCustomers;
+
+    @Value("${customer.typeahead.max-age-minutes:30}")
+    private long maxAgeMinutes;
+
+    // Access-ordered so iteration starts from the least recently used shop; only guards lookup and eviction
+    private final LinkedHashMap<Long, ShopSlot> shopIndexes = new LinkedHashMap<>(16, 0.75f, true);
+    private long indexedCustomers;
+
+    /**
+     * Find up to {@code limit} customers of a shop whose name, entity name or phone
+     * has a token starting with the given query
+     */
+    public List<CustomerLookupDTO> search(Long shopId, String query, int limit) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        return getOrLoad(shopId).search(normalized.split(" "), limit);
+    }
+
+    /**
+     * Apply a created or updated customer to the index once the surrounding transaction commits
+     */
+    public void onCustomerSaved(Customer customer, Long previousShopId) {
+        CustomerLookupDTO lookup = new CustomerLookupDTO(customer.getId(), customer.getShop().getId(),
+                customer.getName(), customer.getEntityName(), customer.getPhone(), customer.getIsActive());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    applyUpsert(lookup, previousShopId);
+                }
+            });
+        } else {
+            applyUpsert(lookup, previousShopId);
+        }
+    }
+
+    private void applyUpsert(CustomerLookupDTO lookup, Long previousShopId) {
+        if (previousShopId != null && !previousShopId.equals(lookup.getShopId())) {
+            ShopSlot previous = slotOf(previousShopId, false);
+            if (previous != null) {
+                update(previousShopId, previous, index -> index.without(lookup.getId()));
+            }
+        }
+        ShopSlot current = slotOf(lookup.getShopId(), false);
+        if (current != null) {
+            update(lookup.getShopId(), current, index -> index.with(lookup));
+        }
+    }
+
+    private void update(Long shopId, ShopSlot slot, UnaryOperator<ShopIndex> change) {
+        int delta;
+        synchronized (slot) {
+            // Bumped even when nothing is cached yet, so a load racing with this write is not cached
+            slot.writeStamp.incrementAndGet();
+            ShopIndex index = slot.index;
+            if (index == null) {
+                return;
+            }
+            ShopIndex updated = change.apply(index);
+            slot.index = updated;
+            delta = updated.size() - index.size();
+        }
+        account(shopId, slot, delta);
+    }
+
+    private ShopIndex getOrLoad(Long shopId) {
+        ShopSlot slot = slotOf(shopId, true);
+        ShopIndex index = slot.index;
+        if (index != null && !index.isExpired(maxAgeMinutes)) {
+            return index;
+        }
+
+        // One load per shop at a time; writes to the shop are not blocked by the query
+        synchronized (slot.loadLock) {
+            index = slot.index;
+            if (index != null && !index.isExpired(maxAgeMinutes)) {
+                return index;
+            }
+            long stampBefore = slot.writeStamp.get();
+            long start = System.nanoTime();
+            ShopIndex loaded = ShopIndex.build(customerRepository.findLookupsByShopId(shopId));
+            log.debug("Built typeahead index for shop ID: {} with {} customers in {} µs",
+                    shopId, loaded.size(), TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+
+            int delta;
+            synchronized (slot) {
+                // A write to this shop racing with the load marks the result as uncacheable
+                if (slot.writeStamp.get() != stampBefore) {
+                    return loaded;
+                }
+                delta = loaded.size() - (slot.index != null ? slot.index.size() : 0);
+                slot.index = loaded;
+            }
+            account(shopId, slot, delta);
+            return loaded;
+        }
+    }
+
+    private ShopSlot slotOf(Long shopId, boolean create) {
+        synchronized (shopIndexes) {
+            return create ? shopIndexes.computeIfAbsent(shopId, id -> new ShopSlot()) : shopIndexes.get(shopId);
+        }
+    }
+
+    /**
+     * Track the indexed customer count and evict least recently used shops over budget.
+     * Slots already evicted are ignored, their size was subtracted when they were removed.
+     */
+    private void account(Long shopId, ShopSlot slot, int delta) {
+        synchronized (shopIndexes) {
+            if (shopIndexes.get(shopId) != slot) {
+                return;
+            }
+            indexedCustomers += delta;
+
+            Iterator<Map.Entry<Long, ShopSlot>> eldest = shopIndexes.entrySet().iterator();
+            while (indexedCustomers > maxIndexedCustomers && eldest.hasNext()) {
+                Map.Entry<Long, ShopSlot> entry = eldest.next();
+                if (entry.getKey().equals(shopId)) {
+                    continue;
+                }
+                ShopIndex evicted = entry.getValue().index;
+                indexedCustomers -= evicted != null ? evicted.size() : 0;
+                eldest.remove();
+                log.debug("Evicted typeahead index for shop ID: {}", entry.getKey());
+            }
+        }
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(value.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < value.length(); i++) {
+            char ch = Character.toLowerCase(value.charAt(i));
+            if (Character.isLetterOrDigit(ch)) {
+                if (pendingSpace && sb.length() > 0) {
+                    sb.append(' ');
+                }
+                sb.append(ch);
+                pendingSpace = false;
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Per-shop cache entry: writes swap the snapshot under the slot's monitor,
+     * loads are serialised on {@code loadLock} so expired snapshots are rebuilt once
+     */
+    private static final class ShopSlot {
+        private final Object loadLock = new Object();
+        private final AtomicLong writeStamp = new AtomicLong();
+        private volatile ShopIndex index;
+    }
+
+    /**
+     * Immutable snapshot: customers sorted by name and a sorted token array whose
+     * postings point back into the customer arrays
+     */
+    private static final class ShopIndex {
+        private final CustomerLookupDTO[] customers;
+        private final String[] normalizedNames;
+        private final String[] tokens;
+        private final int[] postings;
+        private final long builtAt;
+
+        private ShopIndex(CustomerLookupDTO[] customers, String[] normalizedNames, String[] tokens, int[] postings, long builtAt) {
+            this.customers = customers;
+            this.normalizedNames = normalizedNames;
+            this.tokens = tokens;
+            this.postings = postings;
+            this.builtAt = builtAt;
+        }
+
+        static ShopIndex build(Collection<CustomerLookupDTO> source) {
+            CustomerLookupDTO[] customers = source.toArray(new CustomerLookupDTO[0]);
+            Arrays.sort(customers, Comparator.comparing(c -> normalize(c.getName())));
+            String[] normalizedNames = new String[customers.length];
+            for (int i = 0; i < customers.length; i++) {
+                normalizedNames[i] = normalize(customers[i].getName());
+            }
+
+            List<String> tokenList = new ArrayList<>(customers.length * 3);
+            List<Integer> postingList = new ArrayList<>(customers.length * 3);
+            for (int slot = 0; slot < customers.length; slot++) {
+                for (String token : tokensOf(customers[slot])) {
+                    tokenList.add(token);
+                    postingList.add(slot);
+                }
+            }
+
+            Integer[] order = new Integer[tokenList.size()];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.comparing(tokenList::get));
+
+            String[] tokens = new String[order.length];
+            int[] postings = new int[order.length];
+            for (int i = 0; i < order.length; i++) {
+                tokens[i] = tokenList.get(order[i]);
+                postings[i] = postingList.get(order[i]);
+            }
+            return new ShopIndex(customers, normalizedNames, tokens, postings, System.nanoTime());
+        }
+
+        private static Set<String> tokensOf(CustomerLookupDTO customer) {
+            Set<String> tokens = new LinkedHashSet<>();
+            for (String field : new String[]{customer.getName(), customer.getEntityName()}) {
+                String normalized = normalize(field);
+                if (!normalized.isEmpty()) {
+                    tokens.addAll(Arrays.asList(normalized.split(" ")));
+                }
+            }
+            String phone = normalize(customer.getPhone()).replace(" ", "");
+            if (!phone.isEmpty()) {
+                tokens.add(phone);
+                if (phone.length() > 10) {
+                    // Allow lookup without the country code
+                    tokens.add(phone.substring(phone.length() - 10));
+                }
+            }
+            return tokens;
+        }
+
+        int size() {
+            return customers.length;
+        }
+
+        boolean isExpired(long maxAgeMinutes) {
+            return System.nanoTime() - builtAt > TimeUnit.MINUTES.toNanos(maxAgeMinutes);
+        }
+
+        /**
+         * Copy with the customer inserted at its sorted slot (replacing any previous version);
+         * its tokens are merged into the token array and postings after the slot shifted by one.
+         * Keeps the original build time so the snapshot is still refreshed from the database.
+         */
+        ShopIndex with(CustomerLookupDTO customer) {
+            ShopIndex base = without(customer.getId());
+            String name = normalize(customer.getName());
+            int slot = base.nameUpperBound(name);
+
+            int n = base.customers.length;
+            CustomerLookupDTO[] customers = new CustomerLookupDTO[n + 1];
+            String[] normalizedNames = new String[n + 1];
+            System.arraycopy(base.customers, 0, customers, 0, slot);
+            System.arraycopy(base.normalizedNames, 0, normalizedNames, 0, slot);
+            customers[slot] = customer;
+            normalizedNames[slot] = name;
+            System.arraycopy(base.customers, slot, customers, slot + 1, n - slot);
+            System.arraycopy(base.normalizedNames, slot, normalizedNames, slot + 1, n - slot);
+
+            String[] added = tokensOf(customer).toArray(new String[0]);
+            Arrays.sort(added);
+            String[] tokens = new String[base.tokens.length + added.length];
+            int[] postings = new int[tokens.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < tokens.length; k++) {
+                if (j < added.length && (i == base.tokens.length || added[j].compareTo(base.tokens[i]) < 0)) {
+                    tokens[k] = added[j++];
+                    postings[k] = slot;
+                } else {
+                    tokens[k] = base.tokens[i];
+                    postings[k] = base.postings[i] >= slot ? base.postings[i] + 1 : base.postings[i];
+                    i++;
+                }
+            }
+            return new ShopIndex(customers, normalizedNames, tokens, postings, builtAt);
+        }
+
+        /**
+         * Copy without the customer; its tokens are dropped and postings after its slot shifted back
+         */
+        ShopIndex without(Long customerId) {
+            int slot = -1;
+            for (int i = 0; i < customers.length; i++) {
+                if (customers[i].getId().equals(customerId)) {
+                    slot = i;
+                    break;
+                }
+            }
+            if (slot < 0) {
+                return this;
+            }
+
+            int n = customers.length;
+            CustomerLookupDTO[] remainingCustomers = new CustomerLookupDTO[n - 1];
+            String[] remainingNames = new String[n - 1];
+            System.arraycopy(customers, 0, remainingCustomers, 0, slot);
+            System.arraycopy(normalizedNames, 0, remainingNames, 0, slot);
+            System.arraycopy(customers, slot + 1, remainingCustomers, slot, n - slot - 1);
+            System.arraycopy(normalizedNames, slot + 1, remainingNames, slot, n - slot - 1);
+
+            int removed = 0;
+            for (int posting : postings) {
+                if (posting == slot) {
+                    removed++;
+                }
+            }
+            String[] remainingTokens = new String[tokens.length - removed];
+            int[] remainingPostings = new int[remainingTokens.length];
+            int k = 0;
+            for (int i = 0; i < tokens.length; i++) {
+                if (postings[i] != slot) {
+                    remainingTokens[k] = tokens[i];
+                    remainingPostings[k++] = postings[i] > slot ? postings[i] - 1 : postings[i];
+                }
+            }
+            return new ShopIndex(remainingCustomers, remainingNames, remainingTokens, remainingPostings, builtAt);
+        }
+
+        private int nameUpperBound(String name) {
+            int low = 0;
+            int high = normalizedNames.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (normalizedNames[mid].compareTo(name) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Prefix-match the first term against the token array, require every other term to
+         * prefix-match some token of the same customer, then rank active customers whose
+         * name starts with the first term ahead of the rest, alphabetically within each tier
+         */
+        List<CustomerLookupDTO> search(String[] terms, int limit) {
+            BitSet candidates = new BitSet(customers.length);
+            for (int i = lowerBound(terms[0]); i < tokens.length && tokens[i].startsWith(terms[0]); i++) {
+                candidates.set(postings[i]);
+            }
+            for (int t = 1; t < terms.length; t++) {
+                BitSet matches = new BitSet(customers.length);
+                for (int i = lowerBound(terms[t]); i < tokens.length && tokens[i].startsWith(terms[t]); i++) {
+                    matches.set(postings[i]);
+                }
+                candidates.and(matches);
+            }
+
+            List<CustomerLookupDTO> results = new ArrayList<>(Math.min(limit, candidates.cardinality()));
+            for (int tier = 0; tier < 3 && results.size() < limit; tier++) {
+                for (int slot = candidates.nextSetBit(0); slot >= 0 && results.size() < limit; slot = candidates.nextSetBit(slot + 1)) {
+                    if (tierOf(slot, terms[0]) == tier) {
+                        results.add(customers[slot]);
+                    }
+                }
+            }
+            return results;
+        }
+
+        private int tierOf(int slot, String firstTerm) {
+            boolean active = Boolean.TRUE.equals(customers[slot].getIsActive());
+            boolean namePrefix = normalizedNames[slot].startsWith(firstTerm);
+            if (active && namePrefix) {
+                return 0;
+            }
+            return active ? 1 : 2;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = tokens.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (tokens[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
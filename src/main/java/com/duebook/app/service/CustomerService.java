@@ -11,7 +11,6 @@ import com.duebook.app.repository.CustomerLedgerRepository;
 import com.duebook.app.repository.ShopRepository;
 import com.duebook.app.repository.ShopUserRepository;
 import com.duebook.app.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -34,7 +33,8 @@ public class CustomerService {
     private final UserRepository userRepository;
     private final CustomerLedgerRepository customerLedgerRepository;
     private final AuditService auditService;
-    private final ObjectMapper objectMapper;
+    private final CustomerSearchIndex customerSearchIndex;
+    private final ShopDataVersionService shopDataVersionService;
 
     /**
      * Get all customers for the authenticated user
@@ -86,6 +86,7 @@ public class CustomerService {
         customer.setUpdatedAt(LocalDateTime.now());
 
         Customer savedCustomer = customerRepository.save(customer);
+        customerSearchIndex.onCustomerSaved(savedCustomer, null);
 
         // If opening balance is greater than 0, create a ledger entry
         if (customerDTO.getOpeningBalance() != null && customerDTO.getOpeningBalance() > 0) {
@@ -94,6 +95,7 @@ public class CustomerService {
 
         // Audit log: Customer created
         logAudit(shop.getId(), AuditAction.CUSTOMER.name(), savedCustomer.getId(), AuditAction.CUSTOMER_CREATED, userId, null, convertToDTO(savedCustomer));
+        shopDataVersionService.bump(shop.getId());
 
         return convertToDTO(savedCustomer);
     }
@@ -121,6 +123,7 @@ public class CustomerService {
 
         // Store old value for audit
         CustomerDTO oldCustomerDTO = convertToDTO(customer);
+        Long previousShopId = customer.getShop().getId();
 
         // Update the customer
         customer.setName(customerDTO.getName().trim());
@@ -135,9 +138,14 @@ public class CustomerService {
         customer.setUpdatedAt(LocalDateTime.now());
 
         Customer updatedCustomer = customerRepository.save(customer);
+        customerSearchIndex.onCustomerSaved(updatedCustomer, previousShopId);
 
         // Audit log: Customer updated
         logAudit(shop.getId(), AuditAction.CUSTOMER.name(), updatedCustomer.getId(), AuditAction.CUSTOMER_UPDATED, userId, oldCustomerDTO, convertToDTO(updatedCustomer));
+        shopDataVersionService.bump(shop.getId());
+        if (!previousShopId.equals(shop.getId())) {
+            shopDataVersionService.bump(previousShopId);
+        }
 
         return convertToDTO(updatedCustomer);
     }
@@ -185,13 +193,7 @@ public class CustomerService {
      * Log audit for customer and ledger operations
      */
     private void logAudit(Long shopId, String entityType, Long entityId, AuditAction action, Long userId, Object oldValue, Object newValue) {
-        try {
-            String oldVal = oldValue != null ? objectMapper.writeValueAsString(oldValue) : null;
-            String newVal = newValue != null ? objectMapper.writeValueAsString(newValue) : null;
-            auditService.logAuditLongId(shopId, entityType, entityId, action, userId, oldVal, newVal);
-        } catch (Exception e) {
-            log.error("Error logging audit for " + entityType + " operation: " + action.name(), e);
-        }
+        auditService.logAuditChange(shopId, entityType, entityId, action, userId, oldValue, newValue);
     }
 
     /**
@@ -232,55 +234,22 @@ public class CustomerService {
     /**
      * Get customer summary with all filters applied (without pagination)
      * Used for summary cards that need complete data across all pages
+     * Counts and balances are aggregated in the database rather than loaded per customer
      */
     @Transactional(readOnly = true)
     public CustomerSummaryDTO getCustomerSummary(Long userId, Long shopId, String status, String searchTerm) {
-        List<Customer> filteredCustomers;
+        boolean hasStatus = status != null && !status.isEmpty();
+        boolean isActive = hasStatus && "active".equalsIgnoreCase(status);
+        boolean hasSearch = searchTerm != null && !searchTerm.isEmpty();
+        String term = hasSearch ? searchTerm : "";
+        String termLower = term.toLowerCase();
 
         if (shopId != null && shopId > 0) {
-            // Get customers for specific shop
-            filteredCustomers = customerRepository.findByShopId(shopId);
-        } else {
-            // Get all customers for user
-            filteredCustomers = customerRepository.findAllByUserId(userId);
+            // Summarize customers for specific shop
+            return customerRepository.summarizeByShopId(shopId, hasStatus, isActive, hasSearch, term, termLower);
         }
-
-        // Apply status filter
-        if (status != null && !status.isEmpty()) {
-            boolean isActive = "active".equalsIgnoreCase(status);
-            filteredCustomers = filteredCustomers.stream()
-                    .filter(c -> c.getIsActive() != null && c.getIsActive() == isActive)
-                    .collect(Collectors.toList());
-        }
-
-        // Apply search filter
-        if (searchTerm != null && !searchTerm.isEmpty()) {
-            String searchLower = searchTerm.toLowerCase();
-            filteredCustomers = filteredCustomers.stream()
-                    .filter(c -> c.getName().toLowerCase().contains(searchLower) ||
-                            (null != c.getEntityName() && c.getEntityName().toLowerCase().contains(searchLower)) ||
-                            c.getPhone().contains(searchTerm))
-                    .collect(Collectors.toList());
-        }
-
-        // Calculate summary
-        long totalCustomers = filteredCustomers.size();
-        long activeCustomers = filteredCustomers.stream()
-                .filter(c -> c.getIsActive() != null && c.getIsActive())
-                .count();
-        double totalOpeningBalance = filteredCustomers.stream()
-                .mapToDouble(c -> c.getOpeningBalance() != null ? c.getOpeningBalance() : 0.0)
-                .sum();
-        double totalCurrentBalance = filteredCustomers.stream()
-                .mapToDouble(c -> c.getCurrentBalance() != null ? c.getCurrentBalance() : 0.0)
-                .sum();
-
-        return CustomerSummaryDTO.builder()
-                .totalCustomers(totalCustomers)
-                .activeCustomers(activeCustomers)
-                .totalOpeningBalance(totalOpeningBalance)
-                .totalCurrentBalance(totalCurrentBalance)
-                .build();
+        // Summarize all customers for user
+        return customerRepository.summarizeByUserId(userId, hasStatus, isActive, hasSearch, term, termLower);
     }
 
     /**
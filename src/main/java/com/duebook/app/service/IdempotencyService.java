@@ -0,0 +1,240 @@
+package com.duebook.app.service;
+
+import com.duebook.app.exception.ApplicationException;
+import com.duebook.app.exception.RateLimitExceededException;
+import com.duebook.app.model.IdempotencyRecord;
+import com.duebook.app.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Makes write endpoints safe to retry: a request sent again with the same Idempotency-Key
+ * gets the original response back instead of running the write a second time.
+ *
+ * A key is claimed in Redis (SET NX) while the request runs, so a concurrent retry is told to
+ * come back shortly. The response is stored in the same transaction as the write, keyed by
+ * (user, key), so it survives Redis being flushed or unavailable; Redis then serves replays.
+ * Failed requests are not stored and can be retried with the same key.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final String KEY_PREFIX = "duebook-idempotency:";
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final String STATE_IN_PROGRESS = "IN_PROGRESS";
+    private static final String STATE_COMPLETED = "COMPLETED";
+
+    private final StringRedisTemplate redisTemplate;
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl.hours:24}")
+    private long ttlHours;
+
+    @Value("${idempotency.in-progress.ttl.seconds:60}")
+    private long inProgressTtlSeconds;
+
+    /**
+     * Run a write once per idempotency key. Without a key the write simply runs.
+     */
+    public <T> ResponseEntity<T> execute(String idempotencyKey, Long userId, String operation, Object request,
+                                         Class<T> responseType, Supplier<ResponseEntity<T>> write) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return write.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ApplicationException("Idempotency-Key cannot exceed " + MAX_KEY_LENGTH + " characters", "INVALID_IDEMPOTENCY_KEY");
+        }
+        String requestHash = hash(operation, request);
+        String redisKey = KEY_PREFIX + userId + ":" + idempotencyKey;
+
+        Boolean claimed = claim(redisKey, requestHash);
+        if (Boolean.FALSE.equals(claimed)) {
+            Optional<ResponseEntity<T>> cached = replayFromRedis(redisKey, requestHash, responseType);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
+        // Redis had no completed response (first attempt, evicted, or Redis is down): the database decides
+        try {
+            Optional<IdempotencyRecord> existing = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey);
+            if (existing.isPresent()) {
+                if (existing.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+                    cacheInRedis(redisKey, existing.get());
+                    return replay(existing.get().getRequestHash(), existing.get().getResponseStatus(),
+                            existing.get().getResponseBody(), requestHash, responseType);
+                }
+                idempotencyRecordRepository.delete(existing.get());
+            }
+        } catch (RuntimeException e) {
+            // Reused key, unreadable stored response or database error: don't leave retries facing IN_PROGRESS
+            if (Boolean.TRUE.equals(claimed)) {
+                release(redisKey);
+            }
+            throw e;
+        }
+
+        try {
+            IdempotencyRecord record = new IdempotencyRecord();
+            ResponseEntity<T> response = transactionTemplate.execute(status -> {
+                ResponseEntity<T> result = write.get();
+                record.setUserId(userId);
+                record.setIdempotencyKey(idempotencyKey);
+                record.setRequestHash(requestHash);
+                record.setResponseStatus(result.getStatusCode().value());
+                record.setResponseBody(toJson(result.getBody()));
+                record.setExpiresAt(LocalDateTime.now().plusHours(ttlHours));
+                idempotencyRecordRepository.save(record);
+                return result;
+            });
+            cacheInRedis(redisKey, record);
+            return response;
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key committed first while Redis could not arbitrate
+            log.warn("Idempotency-Key {} for user ID: {} was committed concurrently; replaying stored response", idempotencyKey, userId);
+            IdempotencyRecord winner = idempotencyRecordRepository.findByUserIdAndIdempotencyKey(userId, idempotencyKey)
+                    .orElseThrow(() -> e);
+            cacheInRedis(redisKey, winner);
+            return replay(winner.getRequestHash(), winner.getResponseStatus(), winner.getResponseBody(), requestHash, responseType);
+        } catch (RuntimeException e) {
+            if (Boolean.TRUE.equals(claimed)) {
+                release(redisKey);
+            }
+            throw e;
+        }
+    }
+
+    @Scheduled(cron = "${idempotency.cleanup.cron.expression:0 30 3 * * ?}")
+    public void deleteExpiredKeys() {
+        try {
+            Integer deleted = transactionTemplate.execute(status -> idempotencyRecordRepository.deleteExpired(LocalDateTime.now()));
+            log.info("Deleted {} expired idempotency keys", deleted);
+        } catch (Exception e) {
+            log.error("Error deleting expired idempotency keys", e);
+        }
+    }
+
+    /**
+     * Claim the key for this request; null when Redis is unavailable
+     */
+    private Boolean claim(String redisKey, String requestHash) {
+        try {
+            Map<String, Object> inProgress = new HashMap<>();
+            inProgress.put("state", STATE_IN_PROGRESS);
+            inProgress.put("requestHash", requestHash);
+            return redisTemplate.opsForValue().setIfAbsent(redisKey, toJson(inProgress), Duration.ofSeconds(inProgressTtlSeconds));
+        } catch (Exception e) {
+            log.warn("Redis unavailable for idempotency key {}; falling back to the database: {}", redisKey, e.getMessage());
+            return null;
+        }
+    }
+
+    private <T> Optional<ResponseEntity<T>> replayFromRedis(String redisKey, String requestHash, Class<T> responseType) {
+        Map<String, Object> entry;
+        try {
+            String value = redisTemplate.opsForValue().get(redisKey);
+            if (value == null) {
+                return Optional.empty();
+            }
+            entry = objectMapper.readValue(value, new TypeReference<>() {});
+        } catch (Exception e) {
+            log.warn("Could not read idempotency key {} from Redis: {}", redisKey, e.getMessage());
+            return Optional.empty();
+        }
+        if (!requestHash.equals(entry.get("requestHash"))) {
+            throw keyReused();
+        }
+        if (STATE_IN_PROGRESS.equals(entry.get("state"))) {
+            throw new RateLimitExceededException("A request with this Idempotency-Key is still being processed. Please retry shortly.",
+                    "IDEMPOTENCY_KEY_IN_PROGRESS", 1);
+        }
+        return Optional.of(replay(requestHash, ((Number) entry.get("status")).intValue(), (String) entry.get("body"),
+                requestHash, responseType));
+    }
+
+    private <T> ResponseEntity<T> replay(String storedHash, int status, String body, String requestHash, Class<T> responseType) {
+        if (!storedHash.equals(requestHash)) {
+            throw keyReused();
+        }
+        try {
+            T value = body != null ? objectMapper.readValue(body, responseType) : null;
+            return ResponseEntity.status(status).header(REPLAYED_HEADER, "true").body(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to read stored idempotent response", e);
+        }
+    }
+
+    private void cacheInRedis(String redisKey, IdempotencyRecord record) {
+        try {
+            Map<String, Object> completed = new HashMap<>();
+            completed.put("state", STATE_COMPLETED);
+            completed.put("requestHash", record.getRequestHash());
+            completed.put("status", record.getResponseStatus());
+            completed.put("body", record.getResponseBody());
+            Duration ttl = Duration.between(LocalDateTime.now(), record.getExpiresAt());
+            if (!ttl.isNegative() && !ttl.isZero()) {
+                redisTemplate.opsForValue().set(redisKey, toJson(completed), ttl);
+            }
+        } catch (Exception e) {
+            log.warn("Could not cache idempotent response for {} in Redis: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private void release(String redisKey) {
+        try {
+            redisTemplate.delete(redisKey);
+        } catch (Exception e) {
+            log.warn("Could not release idempotency key {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(toJson(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unable to serialize idempotent request or response", e);
+        }
+    }
+
+    private static ApplicationException keyReused() {
+        return new ApplicationException("This Idempotency-Key was already used for a different request", "IDEMPOTENCY_KEY_REUSED");
+    }
+}
@@ -0,0 +1,340 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.BackgroundThreads;
+import com.duebook.app.dto.EmailIntent;
+import com.duebook.app.dto.StatementBalanceDTO;
+import com.duebook.app.dto.StatementLineDTO;
+import com.duebook.app.model.EmailTemplate;
+import com.duebook.app.model.Shop;
+import com.duebook.app.repository.CustomerLedgerRepository;
+import com.duebook.app.repository.ShopRepository;
+import com.duebook.app.repository.ShopUserRepository;
+import com.duebook.app.util.IndianNumberFormatter;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Generates monthly customer statements (opening balance, entries, closing balance) for every
+ * active shop and queues them to the shop's owners, a batch of customers per email.
+ *
+ * Shops are processed in parallel on a small bounded pool; each shop reads its balances with one
+ * aggregate query and streams its ledger lines in customer order, so memory stays bounded by one
+ * email batch. Finished shops are recorded in Redis, so a run interrupted by a restart resumes
+ * with the remaining shops instead of starting over. The run holds a short cluster lease kept
+ * alive by a heartbeat, so when its instance dies another one picks it up within minutes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MonthlyStatementService {
+
+    private static final String KEY_PREFIX = "duebook-statements:";
+    private static final String STATUS_RUNNING = "RUNNING";
+    private static final String STATUS_COMPLETED = "COMPLETED";
+    private static final DateTimeFormatter PERIOD_FORMAT = DateTimeFormatter.ofPattern("dd MMM yyyy");
+    private static final DateTimeFormatter LINE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd MMM");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMMM yyyy");
+
+    private final ShopRepository shopRepository;
+    private final ShopUserRepository shopUserRepository;
+    private final CustomerLedgerRepository customerLedgerRepository;
+    private final ResendEmailService resendEmailService;
+    private final StringRedisTemplate redisTemplate;
+    private final ClusterLockService clusterLockService;
+    private final PlatformTransactionManager transactionManager;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${statements.enabled:true}")
+    private boolean enabled;
+
+    @Value("${statements.parallelism:2}")
+    private int parallelism;
+
+    @Value("${statements.customers.per.email:50}")
+    private int customersPerEmail;
+
+    @Value("${statements.lock.ttl.seconds:60}")
+    private long lockTtlSeconds;
+
+    @Value("${statements.max.attempts:5}")
+    private long maxAttempts;
+
+    @Value("${statements.state.retention.days:45}")
+    private long stateRetentionDays;
+
+    private final AtomicBoolean generating = new AtomicBoolean();
+    private volatile boolean stopping;
+
+    /**
+     * Pick up last month's run if it is unfinished and no live instance holds its lease, e.g.
+     * after the instance running it stopped or died. Runs that keep failing are given up after
+     * maxAttempts, since a shop that fails part-way has already queued some of its emails.
+     */
+    @Scheduled(initialDelayString = "${statements.resume.check.initial.delay.millis:60000}",
+            fixedDelayString = "${statements.resume.check.interval.millis:300000}")
+    public void resumeInterruptedRun() {
+        if (!enabled || generating.get()) {
+            return;
+        }
+        YearMonth month = YearMonth.now().minusMonths(1);
+        try {
+            String attempts = redisTemplate.opsForValue().get(key(month, "attempts"));
+            if (STATUS_RUNNING.equals(redisTemplate.opsForValue().get(key(month, "status")))
+                    && (attempts == null || Long.parseLong(attempts) < maxAttempts)
+                    && !Boolean.TRUE.equals(redisTemplate.hasKey(key(month, "lock")))) {
+                log.info("Resuming interrupted monthly statement run for {}", month);
+                backgroundThreads.factory("duebook-statements-resume-")
+                        .newThread(() -> generateStatements(month))
+                        .start();
+            }
+        } catch (Exception e) {
+            log.warn("Could not check for an interrupted monthly statement run: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "${statements.cron.expression:0 0 6 1 * ?}")
+    public void generateMonthlyStatements() {
+        if (!enabled) {
+            return;
+        }
+        generateStatements(YearMonth.now().minusMonths(1));
+    }
+
+    /**
+     * Generate and queue statements for a month, skipping shops already done in an earlier attempt.
+     * Only one instance runs a month at a time.
+     */
+    public void generateStatements(YearMonth month) {
+        if (!generating.compareAndSet(false, true)) {
+            log.info("Monthly statements are already being generated on this instance");
+            return;
+        }
+        try {
+            Optional<ClusterLockService.Lease> lease = clusterLockService.tryAcquire(key(month, "lock"), Duration.ofSeconds(lockTtlSeconds));
+            if (lease.isEmpty()) {
+                log.info("Monthly statements for {} are already being generated by another instance", month);
+                return;
+            }
+            try (ClusterLockService.Lease held = lease.get()) {
+                generateStatements(month, held);
+            }
+        } finally {
+            generating.set(false);
+        }
+    }
+
+    private void generateStatements(YearMonth month, ClusterLockService.Lease lease) {
+        String statusKey = key(month, "status");
+        String doneKey = key(month, "shops-done");
+        try {
+            if (STATUS_COMPLETED.equals(redisTemplate.opsForValue().get(statusKey))) {
+                log.info("Monthly statements for {} were already sent", month);
+                return;
+            }
+            redisTemplate.opsForValue().set(statusKey, STATUS_RUNNING, Duration.ofDays(stateRetentionDays));
+            redisTemplate.opsForValue().increment(key(month, "attempts"));
+            redisTemplate.expire(key(month, "attempts"), Duration.ofDays(stateRetentionDays));
+
+            Set<String> done = redisTemplate.opsForSet().members(doneKey);
+            List<Shop> shops = shopRepository.findAllActive().stream()
+                    .filter(shop -> done == null || !done.contains(shop.getId().toString()))
+                    .toList();
+            log.info("Generating monthly statements for {}: {} shops pending, {} already done",
+                    month, shops.size(), done == null ? 0 : done.size());
+
+            RunStats stats = new RunStats();
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism, backgroundThreads.factory("duebook-statements-"));
+            try {
+                List<Future<?>> results = new ArrayList<>();
+                for (Shop shop : shops) {
+                    results.add(workers.submit(() -> processShop(shop, month, doneKey, lease, stats)));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopping = true;
+            } catch (ExecutionException e) {
+                log.error("Monthly statement worker failed", e.getCause());
+                stats.failedShops.increment();
+            } finally {
+                workers.shutdownNow();
+            }
+
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - stats.startedAt);
+            long customers = stats.customers.sum();
+            log.info("Monthly statements for {}: {} shops, {} customers, {} entries, {} emails in {}ms ({} customers/s)",
+                    month, stats.shops.sum(), customers, stats.entries.sum(), stats.emails.sum(), elapsedMillis,
+                    customers * 1000 / Math.max(1, elapsedMillis));
+
+            if (stopping || !lease.isHeld() || stats.failedShops.sum() > 0) {
+                log.warn("Monthly statements for {} are incomplete ({} shops failed); the remaining shops will be retried by the next resume check",
+                        month, stats.failedShops.sum());
+            } else {
+                redisTemplate.opsForValue().set(statusKey, STATUS_COMPLETED, Duration.ofDays(stateRetentionDays));
+            }
+        } catch (Exception e) {
+            log.error("Error generating monthly statements for {}", month, e);
+        }
+    }
+
+    private void processShop(Shop shop, YearMonth month, String doneKey, ClusterLockService.Lease lease, RunStats stats) {
+        // A lost lease means another instance may have taken the run over; leave the rest to it
+        if (stopping || !lease.isHeld()) {
+            return;
+        }
+        try {
+            List<String> recipients = shopUserRepository.findActiveOwnerEmailsByShopId(shop.getId());
+            if (recipients.isEmpty()) {
+                log.debug("Shop {} has no active owner to send statements to", shop.getId());
+            } else {
+                readOnlyTransaction().executeWithoutResult(status ->
+                        writeStatements(shop, month, recipients.toArray(new String[0]), stats));
+            }
+            redisTemplate.opsForSet().add(doneKey, shop.getId().toString());
+            redisTemplate.expire(doneKey, Duration.ofDays(stateRetentionDays));
+            stats.shops.increment();
+        } catch (Exception e) {
+            stats.failedShops.increment();
+            log.error("Error generating monthly statements for shop ID: {}", shop.getId(), e);
+        }
+    }
+
+    /**
+     * Walk the shop's customers and their month's ledger lines side by side (both ordered by
+     * customer id), queuing an email every customersPerEmail statements.
+     */
+    private void writeStatements(Shop shop, YearMonth month, String[] recipients, RunStats stats) {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        List<StatementBalanceDTO> balances = customerLedgerRepository.findStatementBalancesByShopId(shop.getId(), start, end);
+
+        List<Map<String, Object>> batch = new ArrayList<>();
+        int part = 0;
+        try (Stream<StatementLineDTO> stream = customerLedgerRepository.streamStatementLinesByShopId(shop.getId(), start, end)) {
+            Iterator<StatementLineDTO> lines = stream.iterator();
+            StatementLineDTO next = lines.hasNext() ? lines.next() : null;
+
+            for (StatementBalanceDTO balance : balances) {
+                while (next != null && next.getCustomerId() < balance.getCustomerId()) {
+                    next = lines.hasNext() ? lines.next() : null;
+                }
+                List<Map<String, Object>> rows = new ArrayList<>();
+                double running = balance.getOpeningBalance();
+                while (next != null && next.getCustomerId().equals(balance.getCustomerId())) {
+                    running += next.getBalanceChange();
+                    rows.add(toRow(next, running));
+                    next = lines.hasNext() ? lines.next() : null;
+                }
+                if (rows.isEmpty() && Math.abs(balance.getClosingBalance()) < 0.005) {
+                    continue;
+                }
+                batch.add(toStatement(balance, rows));
+                stats.customers.increment();
+                stats.entries.add(rows.size());
+
+                if (batch.size() >= customersPerEmail) {
+                    queueEmail(shop, month, recipients, batch, ++part);
+                    stats.emails.increment();
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            queueEmail(shop, month, recipients, batch, ++part);
+            stats.emails.increment();
+        }
+    }
+
+    private void queueEmail(Shop shop, YearMonth month, String[] recipients, List<Map<String, Object>> statements, int part) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("shopName", shop.getName());
+        variables.put("periodStart", month.atDay(1).format(PERIOD_FORMAT));
+        variables.put("periodEnd", month.atEndOfMonth().format(PERIOD_FORMAT));
+        variables.put("part", part);
+        variables.put("statements", statements);
+
+        EmailIntent intent = new EmailIntent(recipients, EmailTemplate.MONTHLY_STATEMENTS, variables);
+        intent.setSubject(shop.getName() + " - Customer Statements for " + month.format(MONTH_FORMAT)
+                + (part > 1 ? " (Part " + part + ")" : "") + " - Duebook");
+        resendEmailService.sendEmail(intent);
+    }
+
+    private Map<String, Object> toStatement(StatementBalanceDTO balance, List<Map<String, Object>> rows) {
+        Map<String, Object> statement = new HashMap<>();
+        statement.put("name", balance.getName());
+        statement.put("entityName", balance.getEntityName());
+        statement.put("phone", balance.getPhone());
+        statement.put("openingBalance", formatCurrency(balance.getOpeningBalance()));
+        statement.put("closingBalance", formatCurrency(balance.getClosingBalance()));
+        statement.put("lines", rows);
+        return statement;
+    }
+
+    private Map<String, Object> toRow(StatementLineDTO line, double balanceAfter) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("date", line.getEntryDate().format(LINE_DATE_FORMAT));
+        row.put("type", line.getEntryType().name());
+        row.put("notes", line.getNotes() != null ? line.getNotes() : "");
+        row.put("amount", formatCurrency(line.getAmount()));
+        row.put("balance", formatCurrency(balanceAfter));
+        return row;
+    }
+
+    private static String formatCurrency(double amount) {
+        return IndianNumberFormatter.formatCurrency(BigDecimal.valueOf(amount));
+    }
+
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static String key(YearMonth month, String suffix) {
+        return KEY_PREFIX + month + ":" + suffix;
+    }
+
+    @PreDestroy
+    public void stop() {
+        stopping = true;
+    }
+
+    private static class RunStats {
+        final long startedAt = System.nanoTime();
+        final LongAdder shops = new LongAdder();
+        final LongAdder failedShops = new LongAdder();
+        final LongAdder customers = new LongAdder();
+        final LongAdder entries = new LongAdder();
+        final LongAdder emails = new LongAdder();
+    }
+}
@@ -1,15 +1,20 @@
 package com.duebook.app.service;
 
-import com.duebook.app.dto.ResendEmailPayload;
+import com.duebook.app.dto.EmailIntent;
+import com.duebook.app.exception.RateLimitExceededException;
+import com.duebook.app.model.EmailTemplate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 
 import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 @Slf4j
@@ -19,12 +24,47 @@ public class OtpService {
 
     private final RedisTemplate<String, String> redisTemplate;
     private final ResendEmailService resendEmailService;
-    private final TemplateEngine templateEngine;
+    private final RateLimiterService rateLimiterService;
 
     @Value("${otp.expiration.minutes:5}")
     private long otpExpirationMinutes;
 
+    @Value("${otp.verify.max.attempts:5}")
+    private int maxVerifyAttempts;
+
+    @Value("${otp.verify.lockout.minutes:15}")
+    private long verifyLockoutMinutes;
+
+    @Value("${otp.issue.window.minutes:15}")
+    private long issueWindowMinutes;
+
+    @Value("${otp.issue.max.per.email:5}")
+    private int maxIssuePerEmail;
+
+    @Value("${otp.issue.max.per.ip:20}")
+    private int maxIssuePerIp;
+
     private static final String OTP_PREFIX = "duebook-otp:";
+    private static final String OTP_ATTEMPTS_PREFIX = "duebook-otp-attempts:";
+
+    // Compare-and-delete with a failed-attempt counter. Returns 1 on match, 0 on mismatch,
+    // or -1 while locked out; the OTP is discarded once the attempts run out.
+    private static final DefaultRedisScript<Long> VERIFY_OTP_SCRIPT = new DefaultRedisScript<>(
+            "local attempts = tonumber(redis.call('GET', KEYS[2]) or '0') " +
+            "if attempts >= tonumber(ARGV[2]) then return -1 end " +
+            "local stored = redis.call('GET', KEYS[1]) " +
+            "if stored and stored == ARGV[1] then " +
+            "  redis.call('DEL', KEYS[1], KEYS[2]) " +
+            "  return 1 " +
+            "end " +
+            "attempts = redis.call('INCR', KEYS[2]) " +
+            "if attempts >= tonumber(ARGV[2]) then " +
+            "  redis.call('DEL', KEYS[1]) " +
+            "  redis.call('PEXPIRE', KEYS[2], ARGV[4]) " +
+            "elseif attempts == 1 then " +
+            "  redis.call('PEXPIRE', KEYS[2], ARGV[3]) " +
+            "end " +
+            "return 0", Long.class);
     private static final SecureRandom random = new SecureRandom();
 
     /**
@@ -45,18 +85,40 @@ public class OtpService {
     }
 
     /**
-     * Verify OTP
+     * Enforce the sliding-window limits on OTP issuance per email and per client IP
+     */
+    public void checkIssueLimit(String email, String clientIp) {
+        Map<String, Integer> limits = new LinkedHashMap<>();
+        limits.put("otp-issue:email:" + email.toLowerCase(), maxIssuePerEmail);
+        if (clientIp != null) {
+            limits.put("otp-issue:ip:" + clientIp, maxIssuePerIp);
+        }
+        long waitMillis = rateLimiterService.tryAcquireWindow(limits, TimeUnit.MINUTES.toMillis(issueWindowMinutes));
+        if (waitMillis > 0) {
+            log.warn("OTP issue limit reached for email: {} from IP: {}", email, clientIp);
+            throw new RateLimitExceededException("Too many OTP requests. Please try again later.", "OTP_RATE_LIMITED",
+                    TimeUnit.MILLISECONDS.toSeconds(waitMillis) + 1);
+        }
+    }
+
+    /**
+     * Verify OTP atomically, counting failed attempts and locking out after too many
      */
     public boolean verifyOtp(String email, String otp) {
-        String key = OTP_PREFIX + email;
-        String storedOtp = redisTemplate.opsForValue().get(key);
+        Long result = redisTemplate.execute(VERIFY_OTP_SCRIPT, List.of(OTP_PREFIX + email, OTP_ATTEMPTS_PREFIX + email),
+                otp, String.valueOf(maxVerifyAttempts),
+                String.valueOf(TimeUnit.MINUTES.toMillis(otpExpirationMinutes)),
+                String.valueOf(TimeUnit.MINUTES.toMillis(verifyLockoutMinutes)));
 
-        if (storedOtp != null && storedOtp.equals(otp)) {
-            // Delete OTP after successful verification
-            redisTemplate.delete(key);
+        if (result != null && result == 1) {
             log.info("OTP verified successfully for email: {}", email);
             return true;
         }
+        if (result != null && result < 0) {
+            log.warn("OTP verification locked out for email: {}", email);
+            throw new RateLimitExceededException("Too many incorrect OTP attempts. Please try again later.", "OTP_LOCKED",
+                    TimeUnit.MINUTES.toSeconds(verifyLockoutMinutes));
+        }
 
         log.warn("OTP verification failed for email: {}", email);
         return false;
@@ -67,23 +129,9 @@ public class OtpService {
      */
     public void sendOtpEmail(String email, String name, String otp) {
         try {
-            // Prepare Thymeleaf context
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("otp", otp);
-            context.setVariable("expirationMinutes", otpExpirationMinutes);
-
-            // Process the template
-            String htmlContent = templateEngine.process("email/login-otp", context);
-
-            // Create email payload
-            ResendEmailPayload emailPayload = new ResendEmailPayload();
-            emailPayload.setTo(new String[]{email});
-            emailPayload.setSubject("Your Duebook Login Code");
-            emailPayload.setHtml(htmlContent);
-
-            // Send email
-            resendEmailService.sendEmail(emailPayload);
+            // Queue the template and its variables; the email sender renders it
+            resendEmailService.sendEmail(new EmailIntent(new String[]{email}, EmailTemplate.LOGIN_OTP,
+                    otpVariables(name, otp, true)));
 
             log.info("OTP email sent to: {}", email);
         } catch (Exception e) {
@@ -97,22 +145,9 @@ public class OtpService {
      */
     public void sendSecondaryEmailOtp(String email, String name, String otp) {
         try {
-            // Prepare Thymeleaf context
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("otp", otp);
-
-            // Process the template
-            String htmlContent = templateEngine.process("email/add-secondary-email-otp", context);
-
-            // Create email payload
-            ResendEmailPayload emailPayload = new ResendEmailPayload();
-            emailPayload.setTo(new String[]{email});
-            emailPayload.setSubject("Verify Your Secondary Email - Duebook");
-            emailPayload.setHtml(htmlContent);
-
-            // Send email
-            resendEmailService.sendEmail(emailPayload);
+            // Queue the template and its variables; the email sender renders it
+            resendEmailService.sendEmail(new EmailIntent(new String[]{email}, EmailTemplate.SECONDARY_EMAIL_OTP,
+                    otpVariables(name, otp, false)));
 
             log.info("Secondary email OTP sent to: {}", email);
         } catch (Exception e) {
@@ -126,22 +161,9 @@ public class OtpService {
      */
     public void sendPrimaryEmailUpdateOtp(String email, String name, String otp) {
         try {
-            // Prepare Thymeleaf context
-            Context context = new Context();
-            context.setVariable("name", name);
-            context.setVariable("otp", otp);
-
-            // Process the template
-            String htmlContent = templateEngine.process("email/update-primary-email-otp", context);
-
-            // Create email payload
-            ResendEmailPayload emailPayload = new ResendEmailPayload();
-            emailPayload.setTo(new String[]{email});
-            emailPayload.setSubject("Verify Your New Primary Email - Duebook");
-            emailPayload.setHtml(htmlContent);
-
-            // Send email
-            resendEmailService.sendEmail(emailPayload);
+            // Queue the template and its variables; the email sender renders it
+            resendEmailService.sendEmail(new EmailIntent(new String[]{email}, EmailTemplate.PRIMARY_EMAIL_UPDATE_OTP,
+                    otpVariables(name, otp, false)));
 
             log.info("Primary email update OTP sent to: {}", email);
         } catch (Exception e) {
@@ -150,6 +172,17 @@ public class OtpService {
         }
     }
 
+    private Map<String, Object> otpVariables(String name, String otp, boolean includeExpiration) {
+        // name may be null for users who have not completed their profile
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("name", name);
+        variables.put("otp", otp);
+        if (includeExpiration) {
+            variables.put("expirationMinutes", otpExpirationMinutes);
+        }
+        return variables;
+    }
+
     /**
      * Check if OTP exists for email
      */
@@ -0,0 +1,107 @@
+package com.duebook.app.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Rate limiters kept in Redis, so every application instance shares the same counters.
+ * Each check is one Lua script using the Redis server clock: a token bucket for smoothing
+ * request rates, and a sliding-window log for hard caps over a time window.
+ */
+@Service
+@RequiredArgsConstructor
+public class RateLimiterService {
+
+    private static final String KEY_PREFIX = "duebook-ratelimit:";
+
+    // Returns 0 when a permit was taken, otherwise the milliseconds until one is available
+    private static final DefaultRedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local rate = tonumber(ARGV[1]) " +
+            "local capacity = tonumber(ARGV[2]) " +
+            "local clock = redis.call('TIME') " +
+            "local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000) " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(state[1]) or capacity " +
+            "local ts = tonumber(state[2]) or now " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) " +
+            "local wait = 0 " +
+            "if tokens >= 1 then tokens = tokens - 1 else wait = math.ceil((1 - tokens) * 1000 / rate) end " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now)) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity * 1000 / rate) + 1000) " +
+            "return wait", Long.class);
+
+    // Checks every window first and records the hit in all of them only if none is full.
+    // Returns 0 when admitted, otherwise the milliseconds until the fullest window frees a slot.
+    private static final DefaultRedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local window = tonumber(ARGV[1]) " +
+            "local clock = redis.call('TIME') " +
+            "local now = tonumber(clock[1]) * 1000 + math.floor(tonumber(clock[2]) / 1000) " +
+            "local wait = 0 " +
+            "for i, key in ipairs(KEYS) do " +
+            "  redis.call('ZREMRANGEBYSCORE', key, '-inf', now - window) " +
+            "  if redis.call('ZCARD', key) >= tonumber(ARGV[i + 2]) then " +
+            "    local oldest = redis.call('ZRANGE', key, 0, 0, 'WITHSCORES') " +
+            "    wait = math.max(wait, tonumber(oldest[2]) + window - now) " +
+            "  end " +
+            "end " +
+            "if wait > 0 then return wait end " +
+            "for _, key in ipairs(KEYS) do " +
+            "  redis.call('ZADD', key, now, ARGV[2]) " +
+            "  redis.call('PEXPIRE', key, window) " +
+            "end " +
+            "return 0", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Try to take one permit from the named bucket.
+     *
+     * @param name             bucket name, shared by every caller that should be limited together
+     * @param permitsPerSecond sustained refill rate
+     * @param burst            bucket capacity
+     * @return 0 if a permit was taken, otherwise milliseconds to wait before the next one is available
+     */
+    public long tryAcquire(String name, double permitsPerSecond, long burst) {
+        Long waitMillis = redisTemplate.execute(TOKEN_BUCKET_SCRIPT, List.of(KEY_PREFIX + name),
+                String.valueOf(permitsPerSecond), String.valueOf(Math.max(1, burst)));
+        return waitMillis != null ? waitMillis : 0;
+    }
+
+    /**
+     * Block until a permit is taken from the named bucket
+     */
+    public void acquire(String name, double permitsPerSecond, long burst) throws InterruptedException {
+        long waitMillis;
+        while ((waitMillis = tryAcquire(name, permitsPerSecond, burst)) > 0) {
+            Thread.sleep(waitMillis);
+        }
+    }
+
+    /**
+     * Record one hit against several sliding windows at once, e.g. per user and per client IP.
+     * The hit is counted only if every window is below its limit.
+     *
+     * @param limits       window name to the maximum hits allowed within the window
+     * @param windowMillis window length
+     * @return 0 if admitted, otherwise milliseconds until the limiting window has room again
+     */
+    public long tryAcquireWindow(Map<String, Integer> limits, long windowMillis) {
+        List<String> keys = new ArrayList<>();
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(windowMillis));
+        args.add(UUID.randomUUID().toString());
+        limits.forEach((name, limit) -> {
+            keys.add(KEY_PREFIX + name);
+            args.add(String.valueOf(limit));
+        });
+        Long waitMillis = redisTemplate.execute(SLIDING_WINDOW_SCRIPT, keys, args.toArray());
+        return waitMillis != null ? waitMillis : 0;
+    }
+}
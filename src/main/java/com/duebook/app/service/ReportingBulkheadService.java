@@ -0,0 +1,122 @@
+package com.duebook.app.service;
+
+import com.duebook.app.exception.RateLimitExceededException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many heavy reporting requests (dashboards, all-shop ledgers, summaries) run at once.
+ *
+ * Each running report can hold a database connection for seconds, so limiting them to fewer
+ * permits than the connection pool keeps the rest of the pool free for interactive reads and
+ * ledger writes. Callers beyond the limit wait in a bounded queue; when the queue is full or
+ * the wait times out the request is rejected with Retry-After instead of piling up.
+ *
+ * The permit is taken after the controller's access checks have run under open-in-view;
+ * connections are released after each transaction, so a waiting caller holds none.
+ */
+@Service
+@Slf4j
+public class ReportingBulkheadService {
+
+    @Value("${reporting.bulkhead.max-concurrent:4}")
+    private int maxConcurrent;
+
+    @Value("${reporting.bulkhead.max-queued:8}")
+    private int maxQueued;
+
+    @Value("${reporting.bulkhead.max-wait.millis:5000}")
+    private long maxWaitMillis;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    private Semaphore permits;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+
+    @PostConstruct
+    public void init() {
+        permits = new Semaphore(maxConcurrent, true);
+        if (maxConcurrent + maxQueued >= connectionPoolSize) {
+            log.warn("Reporting bulkhead admits {} running and {} queued reports but the connection pool has only {} connections; " +
+                    "interactive requests are not protected", maxConcurrent, maxQueued, connectionPoolSize);
+        }
+    }
+
+    /**
+     * Run a reporting operation inside the bulkhead
+     */
+    public <T> T run(String operation, Supplier<T> work) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            throw reject(operation, "queue full");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            queued.decrementAndGet();
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.add(waited);
+        maxWaitNanos.accumulate(waited);
+        if (!acquired) {
+            throw reject(operation, "timed out waiting " + maxWaitMillis + "ms");
+        }
+
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+            completed.increment();
+        }
+    }
+
+    private RateLimitExceededException reject(String operation, String reason) {
+        rejected.increment();
+        log.warn("Rejected {} from reporting bulkhead ({}; {} running, {} queued)",
+                operation, reason, maxConcurrent - permits.availablePermits(), queued.get());
+        return new RateLimitExceededException("Reports are busy right now. Please try again shortly.",
+                "REPORTING_BUSY", Math.max(1, TimeUnit.MILLISECONDS.toSeconds(maxWaitMillis)));
+    }
+
+    /**
+     * Log bulkhead activity for the last interval, if there was any
+     */
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${reporting.bulkhead.stats.interval.millis:60000}")
+    public void logStats() {
+        long done = completed.sumThenReset();
+        long refused = rejected.sumThenReset();
+        long totalWait = waitNanos.sumThenReset();
+        long longestWait = maxWaitNanos.getThenReset();
+        if (done == 0 && refused == 0) {
+            return;
+        }
+        log.info("Reporting bulkhead: {} completed, {} rejected, avg wait {}ms, max wait {}ms, {} running, {} queued",
+                done, refused,
+                TimeUnit.NANOSECONDS.toMillis(totalWait / Math.max(1, done + refused)),
+                TimeUnit.NANOSECONDS.toMillis(longestWait),
+                maxConcurrent - permits.availablePermits(), queued.get());
+    }
+}
@@ -1,27 +1,74 @@
 package com.duebook.app.service;
+import com.duebook.app.config.BackgroundThreads;
+import com.duebook.app.dto.EmailIntent;
 import com.duebook.app.dto.ResendEmailPayload;
+import com.duebook.app.model.EmailTemplate;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.annotation.PostConstruct;
-import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templateresolver.ITemplateResolver;
+import org.thymeleaf.templateresolver.TemplateResolution;
 
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Queues outbound email on a Redis Stream and sends it through the Resend API.
+ *
+ * Every instance joins one consumer group, so each message is delivered to a single
+ * instance and is acknowledged only once it has been sent, retried or dead-lettered.
+ * Failed sends are parked in a retry set with exponential backoff; messages left pending
+ * by a crashed instance are reclaimed once idle. Delivery is at-least-once.
+ *
+ * Requests to Resend draw from a token bucket shared by all instances, and when several
+ * messages are ready they go out together through the batch endpoint as one request.
+ * The queue carries {@link EmailIntent}s; HTML is rendered here from Thymeleaf's template cache.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class ResendEmailService {
+public class ResendEmailService implements SmartLifecycle {
+
+    // Stop after the web server has drained requests (phases just below DEFAULT_PHASE) and
+    // before the Redis connection factory (phase 0), which the final requeue still needs
+    private static final int SHUTDOWN_PHASE = SmartLifecycle.DEFAULT_PHASE - 4096;
 
     @Value("${resend.api.url}")
     private String apiUrl;
@@ -32,72 +79,507 @@ public class ResendEmailService {
     @Value("${resend.sender.email}")
     private String senderEmail;
 
-    @Value("${resend.api.rate.limit.email.interval.seconds}")
-    private int emailSendIntervalSeconds;
+    @Value("${resend.api.batch.url:https://api.resend.com/emails/batch}")
+    private String batchApiUrl;
+
+    @Value("${resend.api.batch.max.size:100}")
+    private int batchMaxSize;
+
+    @Value("${resend.api.rate.limit.requests.per.second:2}")
+    private double requestsPerSecond;
+
+    @Value("${resend.api.rate.limit.burst:2}")
+    private long requestBurst;
+
+    @Value("${resend.queue.poll.interval.millis:500}")
+    private long pollIntervalMillis;
+
+    @Value("${resend.queue.max.attempts:5}")
+    private int maxAttempts;
+
+    @Value("${resend.queue.retry.base.delay.seconds:30}")
+    private long retryBaseDelaySeconds;
+
+    @Value("${resend.queue.retry.max.delay.seconds:3600}")
+    private long retryMaxDelaySeconds;
+
+    @Value("${resend.queue.claim.idle.seconds:300}")
+    private long claimIdleSeconds;
+
+    @Value("${resend.queue.dead.letter.max.length:10000}")
+    private long deadLetterMaxLength;
+
+    @Value("${resend.queue.shutdown.timeout.seconds:10}")
+    private long shutdownTimeoutSeconds;
 
     private final RestTemplate restTemplate;
-    private final RedisTemplate<String, ResendEmailPayload> redisTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final RateLimiterService rateLimiterService;
+    private final TemplateEngine templateEngine;
+    private final BackgroundThreads backgroundThreads;
     private ScheduledExecutorService emailSenderExecutor;
+    private volatile boolean running;
+
+    private static final String EMAIL_STREAM_KEY = "duebook-email:stream";
+    private static final String EMAIL_RETRY_KEY = "duebook-email:retry";
+    private static final String EMAIL_DEAD_LETTER_KEY = "duebook-email:dead-letter";
+    private static final String LEGACY_EMAIL_QUEUE_KEY = "duebook-email:queue";
+    private static final String CONSUMER_GROUP = "duebook-email-senders";
+    private static final String RATE_LIMIT_BUCKET = "resend-api";
+    private static final String FIELD_PAYLOAD = "payload";
+    private static final String FIELD_ATTEMPT = "attempt";
+    private static final int RETRY_PROMOTE_BATCH = 100;
+    private static final int RECLAIM_BATCH = 10;
+
+    // Moves due retries back onto the stream; ZREM and XADD in one script so a retry is never lost or doubled
+    private static final DefaultRedisScript<Long> PROMOTE_RETRIES_SCRIPT = new DefaultRedisScript<>(
+            "local due = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, tonumber(ARGV[2])) " +
+            "for _, member in ipairs(due) do " +
+            "  redis.call('ZREM', KEYS[1], member) " +
+            "  local entry = cjson.decode(member) " +
+            "  redis.call('XADD', KEYS[2], '*', 'payload', entry.payload, 'attempt', tostring(entry.attempt)) " +
+            "end " +
+            "return #due", Long.class);
+
+    // Moves entries from the pre-stream list queue in one step, so a popped message is never lost between commands
+    private static final DefaultRedisScript<Long> MIGRATE_LEGACY_SCRIPT = new DefaultRedisScript<>(
+            "local moved = 0 " +
+            "for i = 1, tonumber(ARGV[1]) do " +
+            "  local payload = redis.call('RPOP', KEYS[1]) " +
+            "  if not payload then break end " +
+            "  redis.call('XADD', KEYS[2], '*', 'payload', payload, 'attempt', '0') " +
+            "  moved = moved + 1 " +
+            "end " +
+            "return moved", Long.class);
+
+    // Hands this consumer's unfinished entries back to the group as new entries, acknowledging the originals
+    private static final DefaultRedisScript<Long> REQUEUE_PENDING_SCRIPT = new DefaultRedisScript<>(
+            "local requeued = 0 " +
+            "for i = 2, #ARGV do " +
+            "  local entry = redis.call('XRANGE', KEYS[1], ARGV[i], ARGV[i]) " +
+            "  if #entry > 0 then " +
+            "    redis.call('XADD', KEYS[1], '*', unpack(entry[1][2])) " +
+            "    requeued = requeued + 1 " +
+            "  end " +
+            "  redis.call('XACK', KEYS[1], ARGV[1], ARGV[i]) " +
+            "  redis.call('XDEL', KEYS[1], ARGV[i]) " +
+            "end " +
+            "return requeued", Long.class);
 
-    private static final String EMAIL_QUEUE_KEY = "duebook-email:queue";
+    private final String consumerName = resolveConsumerName();
+    private final Set<EmailTemplate> availableTemplates = EnumSet.noneOf(EmailTemplate.class);
+    private volatile boolean groupReady;
+    private long lastReclaimAt;
 
-    public void sendEmail(ResendEmailPayload resendEmailPayload) {
-        // Enqueue the email payload for rate-limited sending in Redis
-        log.info("Enqueuing email to Redis queue. Subject: {} To: {}", resendEmailPayload.getSubject(), resendEmailPayload.getTo());
-        redisTemplate.opsForList().leftPush(EMAIL_QUEUE_KEY, resendEmailPayload);
+    public void sendEmail(EmailIntent emailIntent) {
+        // Fail the caller now rather than dead-lettering at dispatch
+        if (emailIntent.getTemplate() != null && !availableTemplates.contains(emailIntent.getTemplate())) {
+            throw new IllegalStateException("Email template " + emailIntent.getTemplate().getTemplateName() + " does not exist");
+        }
+        // Enqueue the template id and variables for rate-limited sending on the Redis stream
+        log.info("Enqueuing email to Redis stream. Template: {} To: {}", emailIntent.getTemplate(), emailIntent.getTo());
+        try {
+            Map<String, String> fields = new HashMap<>();
+            fields.put(FIELD_PAYLOAD, objectMapper.writeValueAsString(emailIntent));
+            fields.put(FIELD_ATTEMPT, "0");
+            redisTemplate.opsForStream().add(EMAIL_STREAM_KEY, fields);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to enqueue email", ex);
+        }
     }
 
     @PostConstruct
     public void startEmailSender() {
-        emailSenderExecutor = Executors.newSingleThreadScheduledExecutor();
+        for (EmailTemplate template : EmailTemplate.values()) {
+            if (templateExists(template)) {
+                availableTemplates.add(template);
+            } else {
+                log.error("Email template {} ({}) does not exist; emails using it will be rejected", template, template.getTemplateName());
+            }
+        }
+        emailSenderExecutor = Executors.newSingleThreadScheduledExecutor(backgroundThreads.factory("duebook-email-"));
+        emailSenderExecutor.execute(this::warmTemplateCache);
         emailSenderExecutor.scheduleWithFixedDelay(() -> {
-            ResendEmailPayload payload = redisTemplate.opsForList().rightPop(EMAIL_QUEUE_KEY);
-            if (payload != null) {
-                try {
-                    log.info("Dequeued email from Redis queue. Subject: {} To: {}", payload.getSubject(), payload.getTo());
-                    this.sendRateLimitedEmail(payload);
-                } catch (Exception ex) {
-                    log.error("Error sending email from Redis queue", ex);
+            try {
+                if (!groupReady) {
+                    initializeQueue();
+                }
+                promoteDueRetries();
+                reclaimStalePending();
+                List<MapRecord<String, Object, Object>> records;
+                while (!emailSenderExecutor.isShutdown() && !(records = nextRecords()).isEmpty()) {
+                    if (!dispatch(records)) {
+                        // Unsettled messages stay pending and head the next read; pick them up next tick
+                        break;
+                    }
                 }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (Exception ex) {
+                groupReady = false;
+                log.error("Error processing email from Redis stream", ex);
             }
-        }, 0, emailSendIntervalSeconds, TimeUnit.SECONDS);
+        }, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
     }
 
-    private void sendRateLimitedEmail(ResendEmailPayload resendEmailPayload) {
+    /**
+     * Create the consumer group and move anything left on the old list queue onto the stream
+     */
+    private void initializeQueue() {
         try {
-            // 1. Set up HTTP headers
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.setBearerAuth(apiKey);
+            redisTemplate.opsForStream().createGroup(EMAIL_STREAM_KEY, ReadOffset.from("0"), CONSUMER_GROUP);
+            log.info("Created email consumer group {} on {}", CONSUMER_GROUP, EMAIL_STREAM_KEY);
+        } catch (RedisSystemException ex) {
+            if (!String.valueOf(ex.getMostSpecificCause().getMessage()).contains("BUSYGROUP")) {
+                throw ex;
+            }
+        }
+        Long migrated;
+        while ((migrated = redisTemplate.execute(MIGRATE_LEGACY_SCRIPT, List.of(LEGACY_EMAIL_QUEUE_KEY, EMAIL_STREAM_KEY),
+                String.valueOf(RETRY_PROMOTE_BATCH))) != null && migrated > 0) {
+            log.info("Migrated {} queued email(s) from legacy list to Redis stream", migrated);
+        }
+        groupReady = true;
+    }
 
-            // 2. Assign sender
-            resendEmailPayload.setFrom(senderEmail);
+    private boolean templateExists(EmailTemplate template) {
+        for (ITemplateResolver resolver : templateEngine.getTemplateResolvers()) {
+            TemplateResolution resolution = resolver.resolveTemplate(templateEngine.getConfiguration(), null, template.getTemplateName(), null);
+            if (resolution != null && resolution.getTemplateResource().exists()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parse every queueable template once so the first dispatch of each is served from the cache
+     */
+    private void warmTemplateCache() {
+        for (EmailTemplate template : availableTemplates) {
+            try {
+                templateEngine.process(template.getTemplateName(), new Context());
+            } catch (Exception ex) {
+                log.warn("Unable to pre-load email template {} ({})", template, template.getTemplateName(), ex);
+            }
+        }
+    }
+
+    private void promoteDueRetries() {
+        Long promoted = redisTemplate.execute(PROMOTE_RETRIES_SCRIPT, List.of(EMAIL_RETRY_KEY, EMAIL_STREAM_KEY),
+                String.valueOf(System.currentTimeMillis()), String.valueOf(RETRY_PROMOTE_BATCH));
+        if (promoted != null && promoted > 0) {
+            log.info("Requeued {} email(s) for retry", promoted);
+        }
+    }
+
+    /**
+     * Claim messages another consumer has held longer than the idle threshold.
+     * Claimed messages land in this consumer's pending list and are picked up by {@link #nextRecords()}.
+     */
+    private void reclaimStalePending() {
+        long now = System.currentTimeMillis();
+        if (now - lastReclaimAt < TimeUnit.SECONDS.toMillis(claimIdleSeconds)) {
+            return;
+        }
+        lastReclaimAt = now;
+
+        Duration minIdle = Duration.ofSeconds(claimIdleSeconds);
+        PendingMessages pending = redisTemplate.opsForStream().pending(EMAIL_STREAM_KEY, CONSUMER_GROUP, Range.unbounded(), RECLAIM_BATCH);
+        for (PendingMessage message : pending) {
+            if (consumerName.equals(message.getConsumerName()) || message.getElapsedTimeSinceLastDelivery().compareTo(minIdle) < 0) {
+                continue;
+            }
+            List<MapRecord<String, Object, Object>> claimed = redisTemplate.opsForStream()
+                    .claim(EMAIL_STREAM_KEY, CONSUMER_GROUP, consumerName, minIdle, message.getId());
+            if (claimed.isEmpty()) {
+                // Entry was deleted from the stream but never acknowledged
+                redisTemplate.opsForStream().acknowledge(EMAIL_STREAM_KEY, CONSUMER_GROUP, message.getId());
+                continue;
+            }
+            log.warn("Reclaimed email {} from consumer {} after {} deliveries", message.getId(), message.getConsumerName(), message.getTotalDeliveryCount());
+            if (message.getTotalDeliveryCount() >= maxAttempts) {
+                deadLetter(claimed.get(0), "Exceeded " + maxAttempts + " deliveries without acknowledgement");
+            }
+        }
+    }
+
+    /**
+     * This consumer's own pending messages (reclaimed or interrupted) first, then new ones
+     */
+    private List<MapRecord<String, Object, Object>> nextRecords() {
+        Consumer consumer = Consumer.from(CONSUMER_GROUP, consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(batchMaxSize);
+        List<MapRecord<String, Object, Object>> records = redisTemplate.opsForStream()
+                .read(consumer, options, StreamOffset.create(EMAIL_STREAM_KEY, ReadOffset.from("0")));
+        if (records == null || records.isEmpty()) {
+            records = redisTemplate.opsForStream()
+                    .read(consumer, options, StreamOffset.create(EMAIL_STREAM_KEY, ReadOffset.lastConsumed()));
+        }
+        return records != null ? records : List.of();
+    }
+
+    /**
+     * Send the ready messages, as one batch request when there are several.
+     * Returns false when a message could not be settled (sent, retried or dead-lettered) and is still pending.
+     */
+    private boolean dispatch(List<MapRecord<String, Object, Object>> records) throws InterruptedException {
+        Map<MapRecord<String, Object, Object>, ResendEmailPayload> ready = new LinkedHashMap<>();
+        for (MapRecord<String, Object, Object> record : records) {
+            try {
+                EmailIntent intent = objectMapper.readValue(String.valueOf(record.getValue().get(FIELD_PAYLOAD)), EmailIntent.class);
+                ready.put(record, render(intent));
+            } catch (Exception ex) {
+                deadLetter(record, "Unable to render payload: " + ex.getMessage());
+            }
+        }
+        // The batch endpoint does not support scheduled sends
+        boolean batchable = ready.size() > 1 && ready.values().stream().allMatch(p -> p.getScheduledAt() == null);
+        if (!batchable) {
+            return processAll(ready);
+        }
 
-            HttpEntity<ResendEmailPayload> request = new HttpEntity<>(resendEmailPayload, headers);
+        List<MapRecord<String, Object, Object>> batch = new ArrayList<>(ready.keySet());
+        try {
+            log.info("Dequeued {} emails from Redis stream for batch send", batch.size());
+            rateLimiterService.acquire(RATE_LIMIT_BUCKET, requestsPerSecond, requestBurst);
+            sendRateLimitedBatch(new ArrayList<>(ready.values()));
+            batch.forEach(this::acknowledge);
+            return true;
+        } catch (HttpClientErrorException ex) {
+            log.error("HTTP error occurred while sending email batch. Status: {}, Response: {}", ex.getStatusCode(), ex.getResponseBodyAsString(), ex);
+            if (ex.getStatusCode().value() == 429) {
+                return retryAll(batch, "HTTP 429");
+            }
+            // One invalid message rejects the whole batch; send individually so only that one is dead-lettered
+            return processAll(ready);
+        } catch (HttpServerErrorException | ResourceAccessException ex) {
+            log.error("Transient error occurred while sending email batch", ex);
+            return retryAll(batch, ex.getMessage());
+        }
+    }
 
-            // 3. Log before sending
-            log.info("Sending email using Resend API: {}", apiUrl);
-            log.debug("Payload: {}", resendEmailPayload);
+    private boolean processAll(Map<MapRecord<String, Object, Object>, ResendEmailPayload> ready) throws InterruptedException {
+        boolean settled = true;
+        for (Map.Entry<MapRecord<String, Object, Object>, ResendEmailPayload> entry : ready.entrySet()) {
+            settled &= processRecord(entry.getKey(), entry.getValue());
+        }
+        return settled;
+    }
 
-            // 4. Send the POST request
-            String response = restTemplate.postForObject(apiUrl, request, String.class);
+    private boolean retryAll(List<MapRecord<String, Object, Object>> records, String reason) {
+        boolean settled = true;
+        for (MapRecord<String, Object, Object> record : records) {
+            settled &= retryOrDeadLetter(record, reason);
+        }
+        return settled;
+    }
 
-            // 5. Log success
-            log.info("Email sent successfully. Response: {}", response);
+    private ResendEmailPayload render(EmailIntent intent) {
+        ResendEmailPayload payload = new ResendEmailPayload();
+        payload.setTo(intent.getTo());
+        payload.setScheduledAt(intent.getScheduledAt());
+        if (intent.getTemplate() == null) {
+            payload.setSubject(intent.getSubject());
+            payload.setHtml(intent.getHtml());
+            return payload;
+        }
+        Context context = new Context();
+        if (intent.getVariables() != null) {
+            context.setVariables(intent.getVariables());
+        }
+        payload.setSubject(intent.getSubject() != null ? intent.getSubject() : intent.getTemplate().getSubject());
+        payload.setHtml(templateEngine.process(intent.getTemplate().getTemplateName(), context));
+        return payload;
+    }
 
-        } catch (HttpClientErrorException | HttpServerErrorException ex) {
-            // Handle HTTP-specific exceptions
+    /**
+     * Send one message; returns false when it is left pending
+     */
+    private boolean processRecord(MapRecord<String, Object, Object> record, ResendEmailPayload payload) throws InterruptedException {
+        try {
+            log.info("Dequeued email from Redis stream. Subject: {} To: {}", payload.getSubject(), payload.getTo());
+            rateLimiterService.acquire(RATE_LIMIT_BUCKET, requestsPerSecond, requestBurst);
+            sendRateLimitedEmail(payload);
+            acknowledge(record);
+            return true;
+        } catch (HttpClientErrorException ex) {
             log.error("HTTP error occurred while sending email. Status: {}, Response: {}", ex.getStatusCode(), ex.getResponseBodyAsString(), ex);
+            if (ex.getStatusCode().value() == 429) {
+                return retryOrDeadLetter(record, "HTTP 429");
+            }
+            deadLetter(record, "HTTP " + ex.getStatusCode().value() + ": " + ex.getResponseBodyAsString());
+            return true;
+        } catch (HttpServerErrorException | ResourceAccessException ex) {
+            log.error("Transient error occurred while sending email", ex);
+            return retryOrDeadLetter(record, ex.getMessage());
+        } catch (InterruptedException ex) {
+            throw ex;
         } catch (Exception ex) {
-            // Handle general exceptions
             log.error("Unexpected exception occurred while sending email in ResendEmailService", ex);
+            return retryOrDeadLetter(record, ex.getMessage());
         }
     }
 
-    @PreDestroy
-    public void stopEmailSender() {
-        if (emailSenderExecutor != null) {
-            emailSenderExecutor.shutdown();
+    private void sendRateLimitedEmail(ResendEmailPayload resendEmailPayload) {
+        // 1. Set up HTTP headers
+        HttpHeaders headers = resendHeaders();
+
+        // 2. Assign sender
+        resendEmailPayload.setFrom(senderEmail);
+
+        HttpEntity<ResendEmailPayload> request = new HttpEntity<>(resendEmailPayload, headers);
+
+        // 3. Log before sending
+        log.info("Sending email using Resend API: {}", apiUrl);
+        log.debug("Payload: {}", resendEmailPayload);
+
+        // 4. Send the POST request
+        String response = restTemplate.postForObject(apiUrl, request, String.class);
+
+        // 5. Log success
+        log.info("Email sent successfully. Response: {}", response);
+    }
+
+    private void sendRateLimitedBatch(List<ResendEmailPayload> payloads) {
+        payloads.forEach(payload -> payload.setFrom(senderEmail));
+        HttpEntity<List<ResendEmailPayload>> request = new HttpEntity<>(payloads, resendHeaders());
+
+        log.info("Sending batch of {} emails using Resend API: {}", payloads.size(), batchApiUrl);
+        String response = restTemplate.postForObject(batchApiUrl, request, String.class);
+        log.info("Email batch sent successfully. Response: {}", response);
+    }
+
+    private HttpHeaders resendHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setBearerAuth(apiKey);
+        return headers;
+    }
+
+    /**
+     * Park the message in the retry set with exponential backoff, or dead-letter it once attempts run out.
+     * Returns false when the retry could not be scheduled and the message is left pending.
+     */
+    private boolean retryOrDeadLetter(MapRecord<String, Object, Object> record, String reason) {
+        int attempt = attemptOf(record) + 1;
+        if (attempt >= maxAttempts) {
+            deadLetter(record, reason);
+            return true;
+        }
+        long delaySeconds = Math.min(retryMaxDelaySeconds, retryBaseDelaySeconds << Math.min(attempt - 1, 20));
+        try {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("id", record.getId().getValue());
+            entry.put(FIELD_ATTEMPT, attempt);
+            entry.put(FIELD_PAYLOAD, String.valueOf(record.getValue().get(FIELD_PAYLOAD)));
+            redisTemplate.opsForZSet().add(EMAIL_RETRY_KEY, objectMapper.writeValueAsString(entry),
+                    System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(delaySeconds));
+        } catch (Exception ex) {
+            // Leave it pending; it is retried from this consumer's pending list on the next tick
+            log.error("Unable to schedule email {} for retry", record.getId(), ex);
+            return false;
+        }
+        acknowledge(record);
+        log.warn("Email {} failed (attempt {} of {}), retrying in {}s: {}", record.getId(), attempt, maxAttempts, delaySeconds, reason);
+        return true;
+    }
+
+    private void deadLetter(MapRecord<String, Object, Object> record, String reason) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put(FIELD_PAYLOAD, String.valueOf(record.getValue().get(FIELD_PAYLOAD)));
+        fields.put(FIELD_ATTEMPT, String.valueOf(attemptOf(record) + 1));
+        fields.put("sourceId", record.getId().getValue());
+        fields.put("error", reason != null ? reason : "unknown");
+        fields.put("failedAt", Instant.now().toString());
+        redisTemplate.opsForStream().add(MapRecord.create(EMAIL_DEAD_LETTER_KEY, fields),
+                RedisStreamCommands.XAddOptions.maxlen(deadLetterMaxLength).approximateTrimming(true));
+        acknowledge(record);
+        log.error("Email {} moved to dead-letter stream {}: {}", record.getId(), EMAIL_DEAD_LETTER_KEY, reason);
+    }
+
+    private void acknowledge(MapRecord<String, Object, Object> record) {
+        redisTemplate.opsForStream().acknowledge(EMAIL_STREAM_KEY, CONSUMER_GROUP, record.getId());
+        redisTemplate.opsForStream().delete(EMAIL_STREAM_KEY, record.getId());
+    }
+
+    private static int attemptOf(MapRecord<String, Object, Object> record) {
+        Object attempt = record.getValue().get(FIELD_ATTEMPT);
+        try {
+            return attempt != null ? Integer.parseInt(attempt.toString()) : 0;
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+
+    private static String resolveConsumerName() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception ex) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        stopEmailSender();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SHUTDOWN_PHASE;
+    }
+
+    /**
+     * Let the batch in progress finish, then hand anything this consumer still holds back to the
+     * group so another instance (or this one after restart) sends it without waiting for reclaim
+     */
+    private void stopEmailSender() {
+        if (emailSenderExecutor == null) {
+            return;
+        }
+        emailSenderExecutor.shutdown();
+        try {
+            if (!emailSenderExecutor.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                log.warn("Email sender did not finish within {}s; interrupting", shutdownTimeoutSeconds);
+                emailSenderExecutor.shutdownNow();
+                emailSenderExecutor.awaitTermination(2, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException ex) {
+            emailSenderExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        requeueOwnPending();
+    }
+
+    private void requeueOwnPending() {
+        try {
+            PendingMessages pending = redisTemplate.opsForStream().pending(EMAIL_STREAM_KEY,
+                    Consumer.from(CONSUMER_GROUP, consumerName), Range.unbounded(), batchMaxSize);
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<String> args = new ArrayList<>();
+            args.add(CONSUMER_GROUP);
+            pending.forEach(message -> args.add(message.getIdAsString()));
+            Long requeued = redisTemplate.execute(REQUEUE_PENDING_SCRIPT, List.of(EMAIL_STREAM_KEY), args.toArray());
+            log.info("Returned {} unsent email(s) to the stream on shutdown", requeued);
+        } catch (Exception ex) {
+            log.warn("Unable to return unsent emails on shutdown; they will be reclaimed after {}s", claimIdleSeconds, ex);
         }
     }
 }
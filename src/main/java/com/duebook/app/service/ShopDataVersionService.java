@@ -0,0 +1,112 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.ReplicaRoutingDataSource;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-shop data version used to answer conditional GETs without running the underlying queries.
+ * The version is bumped after every committed ledger, customer or shop write. Counters are
+ * seeded from the clock, so a reset of Redis never brings back a version a client has seen.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShopDataVersionService {
+
+    private static final String VERSION_PREFIX = "duebook-shop-version:";
+    private static final String CACHE_CONTROL = "private, no-cache";
+
+    private final StringRedisTemplate redisTemplate;
+
+    /**
+     * Bump the shop's data version once the current transaction commits
+     */
+    public void bump(Long shopId) {
+        if (shopId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(shopId);
+                }
+            });
+        } else {
+            increment(shopId);
+        }
+    }
+
+    /**
+     * Set the ETag for the caller's view of the given shops and check it against If-None-Match.
+     * Returns true when the response has been turned into a 304 and the handler should stop.
+     * Otherwise the body must not come from a lagging replica, which would pair the new tag
+     * with old data and the client would keep that stale copy.
+     */
+    public boolean checkNotModified(ServletWebRequest request, Long userId, Collection<Long> shopIds) {
+        String etag;
+        try {
+            etag = etag(userId, shopIds);
+        } catch (Exception e) {
+            log.warn("Unable to read shop data versions for shops: {}", shopIds, e);
+            return false;
+        }
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            // One tag covers the JSON, CBOR and Smile bodies, so caches must key on the negotiated type too
+            request.getResponse().addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (request.checkNotModified(etag)) {
+            return true;
+        }
+        ReplicaRoutingDataSource.requireFreshReads();
+        return false;
+    }
+
+    private String etag(Long userId, Collection<Long> shopIds) {
+        List<Long> sortedIds = shopIds.stream().sorted().toList();
+        List<String> versions = redisTemplate.opsForValue().multiGet(sortedIds.stream().map(this::key).toList());
+
+        // Day is part of the tag because some views (trends, last 30 days) move with the date
+        StringBuilder source = new StringBuilder().append(userId).append('|').append(LocalDate.now());
+        for (int i = 0; i < sortedIds.size(); i++) {
+            String version = versions != null ? versions.get(i) : null;
+            if (version == null) {
+                version = seed(sortedIds.get(i));
+            }
+            source.append('|').append(sortedIds.get(i)).append(':').append(version);
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(source.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private void increment(Long shopId) {
+        try {
+            seed(shopId);
+            redisTemplate.opsForValue().increment(key(shopId));
+        } catch (Exception e) {
+            log.error("Error bumping data version for shop ID: {}", shopId, e);
+        }
+    }
+
+    private String seed(Long shopId) {
+        redisTemplate.opsForValue().setIfAbsent(key(shopId), String.valueOf(System.currentTimeMillis()));
+        return redisTemplate.opsForValue().get(key(shopId));
+    }
+
+    private String key(Long shopId) {
+        return VERSION_PREFIX + shopId;
+    }
+}
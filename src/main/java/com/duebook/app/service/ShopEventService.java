@@ -0,0 +1,223 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.BackgroundThreads;
+import com.duebook.app.dto.ShopEventDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes live ledger and balance updates to every client watching a shop.
+ *
+ * Events are published to a Redis channel after the write commits, so clients connected to
+ * any instance receive them. Each connection has a bounded queue drained by a shared sender
+ * pool; a client that falls behind by more than the queue size is disconnected and is
+ * expected to reconnect and refetch instead of holding an ever-growing backlog.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShopEventService implements MessageListener {
+
+    private static final String CHANNEL = "duebook-shop-events";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final ObjectMapper objectMapper;
+    private final BackgroundThreads backgroundThreads;
+
+    @Value("${shop.events.emitter.timeout.minutes:30}")
+    private long emitterTimeoutMinutes;
+
+    @Value("${shop.events.buffer.size:64}")
+    private int bufferSize;
+
+    @Value("${shop.events.sender.threads:4}")
+    private int senderThreads;
+
+    private final Map<Long, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private ExecutorService senderExecutor;
+
+    @PostConstruct
+    public void start() {
+        senderExecutor = Executors.newFixedThreadPool(senderThreads, backgroundThreads.factory("duebook-events-"));
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * Open an event stream for a shop. Access must be checked by the caller.
+     */
+    public SseEmitter subscribe(Long shopId) {
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(emitterTimeoutMinutes));
+        Subscriber subscriber = new Subscriber(shopId, emitter);
+        subscribers.computeIfAbsent(shopId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        log.debug("Opened event stream for shop ID: {} ({} open)", shopId, subscribers.get(shopId).size());
+        return emitter;
+    }
+
+    /**
+     * Publish an event to all instances once the current transaction commits
+     */
+    public void publish(Long shopId, String type, Object data) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    send(shopId, type, data);
+                }
+            });
+        } else {
+            send(shopId, type, data);
+        }
+    }
+
+    private void send(Long shopId, String type, Object data) {
+        try {
+            ShopEventDTO event = new ShopEventDTO(shopId, type, objectMapper.valueToTree(data));
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            log.error("Error publishing {} event for shop ID: {}", type, shopId, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        ShopEventDTO event;
+        try {
+            event = objectMapper.readValue(new String(message.getBody(), StandardCharsets.UTF_8), ShopEventDTO.class);
+        } catch (Exception e) {
+            log.warn("Ignoring unreadable shop event", e);
+            return;
+        }
+        Set<Subscriber> watching = subscribers.get(event.getShopId());
+        if (watching == null || watching.isEmpty()) {
+            return;
+        }
+        String data = event.getData() != null ? event.getData().toString() : "{}";
+        for (Subscriber subscriber : watching) {
+            subscriber.offer(SseEmitter.event().name(event.getType()).data(data));
+        }
+    }
+
+    /**
+     * Keep idle connections open through proxies and detect clients that have gone away
+     */
+    @Scheduled(fixedDelayString = "${shop.events.heartbeat.interval.millis:25000}")
+    public void sendHeartbeats() {
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscribers.computeIfPresent(subscriber.shopId, (id, set) -> {
+            set.remove(subscriber);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * End open streams as soon as shutdown begins; they never finish on their own and would
+     * otherwise hold the web server's graceful shutdown until its deadline. Clients reconnect.
+     * The listener is removed here too, while the Redis connection is still open: lifecycle
+     * beans, including the connection factory, are stopped before any @PreDestroy runs.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void closeStreams() {
+        try {
+            listenerContainer.removeMessageListener(this);
+        } catch (Exception e) {
+            log.warn("Unable to unsubscribe from shop events on shutdown: {}", e.getMessage());
+        }
+        subscribers.values().forEach(set -> set.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (senderExecutor != null) {
+            senderExecutor.shutdown();
+        }
+    }
+
+    private final class Subscriber {
+        private final Long shopId;
+        private final SseEmitter emitter;
+        private final Queue<SseEmitter.SseEventBuilder> queue = new ConcurrentLinkedQueue<>();
+        private final Semaphore capacity = new Semaphore(bufferSize);
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private Subscriber(Long shopId, SseEmitter emitter) {
+            this.shopId = shopId;
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (!capacity.tryAcquire()) {
+                log.warn("Event stream for shop ID: {} fell {} events behind; disconnecting", shopId, bufferSize);
+                remove(this);
+                emitter.complete();
+                return;
+            }
+            queue.add(event);
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senderExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = queue.poll()) != null) {
+                    capacity.release();
+                    emitter.send(event);
+                }
+            } catch (Exception e) {
+                log.debug("Event stream for shop ID: {} closed: {}", shopId, e.getMessage());
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            // An event may have been queued after the last poll but before draining was cleared
+            if (!queue.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.ReplicaRoutingDataSource;
+import com.duebook.app.exception.ApplicationException;
+import com.duebook.app.model.ShopUser;
+import com.duebook.app.model.User;
+import com.duebook.app.repository.ShopUserRepository;
+import com.duebook.app.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Short-lived, single-use tickets for opening a shop's event stream.
+ *
+ * EventSource cannot send an Authorization header, so the stream URL carries a ticket instead
+ * of the login JWT: the ticket is bound to one shop and user, expires within seconds and is
+ * deleted on first use, so a copy left in access or proxy logs cannot be replayed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ShopEventTicketService {
+
+    private static final String KEY_PREFIX = "duebook-stream-ticket:";
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final StringRedisTemplate redisTemplate;
+    private final UserRepository userRepository;
+    private final ShopUserRepository shopUserRepository;
+
+    @Value("${shop.events.ticket.ttl.seconds:30}")
+    private long ticketTtlSeconds;
+
+    /**
+     * Check that the user is an active member of the shop, in one short transaction so the
+     * request does not keep a pooled connection for the lifetime of the stream
+     */
+    @Transactional(readOnly = true)
+    public Long verifyStreamAccess(Long shopId, String username) {
+        ReplicaRoutingDataSource.requireFreshReads();
+        User user = userRepository.findByPhone(username)
+                .orElseThrow(() -> new ApplicationException("User not found", "USER_NOT_FOUND"));
+        ShopUser shopUser = shopUserRepository.findByShopIdAndUserId(shopId, user.getId())
+                .orElseThrow(() -> {
+                    log.warn("User ID: {} attempted to open event stream for shop ID: {} without access", user.getId(), shopId);
+                    return new ApplicationException("You don't have access to this shop", "FORBIDDEN");
+                });
+        if (shopUser.getStatus() != ShopUser.ShopUserStatus.ACTIVE) {
+            log.warn("Inactive user ID: {} attempted to open event stream for shop ID: {}", user.getId(), shopId);
+            throw new ApplicationException("Your access to this shop has been revoked", "FORBIDDEN");
+        }
+        return user.getId();
+    }
+
+    /**
+     * Issue a ticket for the shop's event stream; access must be verified by the caller
+     */
+    public String issueTicket(Long shopId, String username) {
+        byte[] bytes = new byte[24];
+        RANDOM.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        redisTemplate.opsForValue().set(KEY_PREFIX + ticket, shopId + ":" + username, Duration.ofSeconds(ticketTtlSeconds));
+        return ticket;
+    }
+
+    /**
+     * Consume a ticket, returning the username it was issued to when it is valid for the shop
+     */
+    public Optional<String> redeemTicket(String ticket, Long shopId) {
+        String value = redisTemplate.opsForValue().getAndDelete(KEY_PREFIX + ticket);
+        if (value == null) {
+            return Optional.empty();
+        }
+        int separator = value.indexOf(':');
+        if (!value.substring(0, separator).equals(String.valueOf(shopId))) {
+            log.warn("Event stream ticket for shop {} presented for shop ID: {}", value.substring(0, separator), shopId);
+            return Optional.empty();
+        }
+        return Optional.of(value.substring(separator + 1));
+    }
+
+    public long getTicketTtlSeconds() {
+        return ticketTtlSeconds;
+    }
+}
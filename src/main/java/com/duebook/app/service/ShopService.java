@@ -7,7 +7,6 @@ import com.duebook.app.model.*;
 import com.duebook.app.repository.ShopRepository;
 import com.duebook.app.repository.ShopUserRepository;
 import com.duebook.app.repository.UserRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -25,7 +24,7 @@ public class ShopService {
     private final ShopUserRepository shopUserRepository;
     private final UserRepository userRepository;
     private final AuditService auditService;
-    private final ObjectMapper objectMapper;
+    private final ShopDataVersionService shopDataVersionService;
 
     /**
      * Get all shops for the authenticated user
@@ -78,6 +77,7 @@ public class ShopService {
 
         // Audit log: Shop created
         logShopAudit(savedShop.getId(), AuditAction.SHOP_CREATED, userId, null, convertToDTO(savedShop));
+        shopDataVersionService.bump(savedShop.getId());
 
         return convertToDTO(savedShop);
     }
@@ -112,6 +112,7 @@ public class ShopService {
 
         // Audit log: Shop updated
         logShopAudit(shopId, AuditAction.SHOP_UPDATED, userId, oldShopDTO, convertToDTO(updatedShop));
+        shopDataVersionService.bump(shopId);
 
         return convertToDTO(updatedShop);
     }
@@ -163,6 +164,7 @@ public class ShopService {
         ShopUserDTO resultDTO = convertShopUserToDTO(savedShopUser, userToAdd);
         // Audit log
         logShopAudit(shopId, AuditAction.SHOP_UPDATED, currentUserId, null, resultDTO);
+        shopDataVersionService.bump(shopId);
 
         return resultDTO;
     }
@@ -224,6 +226,7 @@ public class ShopService {
         ShopUserDTO resultDTO = convertShopUserToDTO(updatedShopUser, user);
         // Audit log
         logShopAudit(shopId, AuditAction.SHOP_UPDATED, currentUserId, oldShopUserDTO, resultDTO);
+        shopDataVersionService.bump(shopId);
 
         return resultDTO;
     }
@@ -263,6 +266,7 @@ public class ShopService {
 
         // Audit log
         logShopAudit(shopId, AuditAction.SHOP_UPDATED, currentUserId, oldShopUserDTO, convertShopUserToDTO(updatedShopUser, user));
+        shopDataVersionService.bump(shopId);
     }
 
     /**
@@ -286,12 +290,6 @@ public class ShopService {
      * Log audit for shop actions
      */
     private void logShopAudit(Long shopId, AuditAction action, Long userId, Object oldValue, Object newValue) {
-        try {
-            String oldVal = oldValue != null ? objectMapper.writeValueAsString(oldValue) : null;
-            String newVal = newValue != null ? objectMapper.writeValueAsString(newValue) : null;
-            auditService.logAuditLongId(shopId, AuditAction.SHOP.name(), shopId, action, userId, oldVal, newVal);
-        } catch (Exception e) {
-            log.error("Error logging audit for shop operation: " + action.name(), e);
-        }
+        auditService.logAuditChange(shopId, AuditAction.SHOP.name(), shopId, action, userId, oldValue, newValue);
     }
 }
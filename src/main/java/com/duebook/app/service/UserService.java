@@ -20,7 +20,7 @@ public class UserService {
     private final OtpService otpService;
 
     @Transactional
-    public void requestOtpForEmailChange(Long userId, RequestOtpForEmailChangeRequest request) {
+    public void requestOtpForEmailChange(Long userId, RequestOtpForEmailChangeRequest request, String clientIp) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
@@ -37,6 +37,7 @@ public class UserService {
         }
 
         // Generate and store OTP
+        otpService.checkIssueLimit(newEmail, clientIp);
         String otp = otpService.generateOtp();
         otpService.storeOtp(newEmail, otp);
 
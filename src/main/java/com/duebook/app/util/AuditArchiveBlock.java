@@ -0,0 +1,271 @@
+package com.duebook.app.util;
+
+import com.duebook.app.dto.AuditLogDTO;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One deflate-compressed block of archived audit rows for a shop and month, stored as an
+ * immutable file. The header carries the bounds (performed_at, id) and per action/entity type
+ * record counts, so readers can count and skip blocks without decompressing them.
+ *
+ * File layout: magic, version, bounds, record count, raw length, filter counts, data length, data.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AuditArchiveBlock {
+
+    public static final String FILE_SUFFIX = ".blk";
+
+    private static final int MAGIC = 0x44424142;
+    private static final int VERSION = 1;
+
+    private final LocalDateTime minPerformedAt;
+    private final LocalDateTime maxPerformedAt;
+    private final long minAuditId;
+    private final long maxAuditId;
+    private final int recordCount;
+    private final Map<String, Integer> filterCounts;
+    private final int rawLength;
+    private final byte[] data;
+
+    /**
+     * Compress a non-empty list of records into one block
+     */
+    public static AuditArchiveBlock encode(List<AuditLogDTO> records) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(records.size() * 512);
+        LocalDateTime minAt = null, maxAt = null;
+        long minId = Long.MAX_VALUE, maxId = Long.MIN_VALUE;
+        Map<String, Integer> filterCounts = new LinkedHashMap<>();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            for (AuditLogDTO record : records) {
+                writeRecord(out, record);
+                LocalDateTime at = record.getPerformedAt();
+                minAt = minAt == null || at.isBefore(minAt) ? at : minAt;
+                maxAt = maxAt == null || at.isAfter(maxAt) ? at : maxAt;
+                minId = Math.min(minId, record.getId());
+                maxId = Math.max(maxId, record.getId());
+                filterCounts.merge(filterKey(record.getAction(), record.getEntityType()), 1, Integer::sum);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] rawBytes = raw.toByteArray();
+        return new AuditArchiveBlock(minAt, maxAt, minId, maxId, records.size(), filterCounts, rawBytes.length, deflate(rawBytes));
+    }
+
+    /**
+     * File name of the block within its shop/month directory, unique by id range
+     */
+    public String fileName() {
+        return minAuditId + "-" + maxAuditId + FILE_SUFFIX;
+    }
+
+    /**
+     * Write the block to the file durably: it only appears under its final name once complete,
+     * so readers on other instances never see a partial block
+     */
+    public void writeTo(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length + 256);
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeTime(out, minPerformedAt);
+                writeTime(out, maxPerformedAt);
+                out.writeLong(minAuditId);
+                out.writeLong(maxAuditId);
+                out.writeInt(recordCount);
+                out.writeInt(rawLength);
+                out.writeInt(filterCounts.size());
+                for (Map.Entry<String, Integer> entry : filterCounts.entrySet()) {
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue());
+                }
+                out.writeInt(data.length);
+                out.write(data);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read only the header of a stored block; the returned block has no data
+     */
+    public static AuditArchiveBlock readHeader(Path file) throws IOException {
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(file), 4096)) {
+            return readHeader(new DataInputStream(stream), file);
+        }
+    }
+
+    /**
+     * Memory-map a stored block and decompress its records
+     */
+    public static List<AuditLogDTO> readRecords(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] header = new byte[(int) Math.min(mapped.capacity(), 64 * 1024)];
+            mapped.get(0, header);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(header));
+            AuditArchiveBlock block = readHeader(in, file);
+            int dataLength = in.readInt();
+            int dataOffset = header.length - in.available();
+            return decode(mapped.slice(dataOffset, dataLength), block.rawLength, block.recordCount);
+        }
+    }
+
+    /**
+     * Key of {@link #getFilterCounts()}: the action and entity type of a record
+     */
+    public static String filterKey(String action, String entityType) {
+        return action + "|" + entityType;
+    }
+
+    private static AuditArchiveBlock readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an audit archive block: " + file);
+        }
+        LocalDateTime minAt = readTime(in);
+        LocalDateTime maxAt = readTime(in);
+        long minId = in.readLong();
+        long maxId = in.readLong();
+        int recordCount = in.readInt();
+        int rawLength = in.readInt();
+        int filters = in.readInt();
+        Map<String, Integer> filterCounts = new LinkedHashMap<>();
+        for (int i = 0; i < filters; i++) {
+            filterCounts.put(readString(in), in.readInt());
+        }
+        return new AuditArchiveBlock(minAt, maxAt, minId, maxId, recordCount, filterCounts, rawLength, null);
+    }
+
+    private static List<AuditLogDTO> decode(ByteBuffer data, int rawLength, int recordCount) throws IOException {
+        byte[] rawBytes = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            inflater.inflate(rawBytes);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt audit archive block", e);
+        } finally {
+            inflater.end();
+        }
+
+        List<AuditLogDTO> records = new ArrayList<>(recordCount);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(rawBytes));
+        for (int i = 0; i < recordCount; i++) {
+            records.add(readRecord(in));
+        }
+        return records;
+    }
+
+    private static void writeRecord(DataOutputStream out, AuditLogDTO record) throws IOException {
+        out.writeLong(record.getId());
+        out.writeLong(record.getShopId());
+        writeString(out, record.getEntityType());
+        out.writeLong(record.getEntityId().getMostSignificantBits());
+        out.writeLong(record.getEntityId().getLeastSignificantBits());
+        writeString(out, record.getAction());
+        out.writeLong(record.getPerformedById());
+        writeString(out, record.getPerformedByName());
+        writeString(out, record.getOldValue());
+        writeString(out, record.getNewValue());
+        writeTime(out, record.getPerformedAt());
+    }
+
+    private static AuditLogDTO readRecord(DataInputStream in) throws IOException {
+        AuditLogDTO record = new AuditLogDTO();
+        record.setId(in.readLong());
+        record.setShopId(in.readLong());
+        record.setEntityType(readString(in));
+        record.setEntityId(new UUID(in.readLong(), in.readLong()));
+        record.setAction(readString(in));
+        record.setPerformedById(in.readLong());
+        record.setPerformedByName(readString(in));
+        record.setOldValue(readString(in));
+        record.setNewValue(readString(in));
+        record.setPerformedAt(readTime(in));
+        return record;
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+}
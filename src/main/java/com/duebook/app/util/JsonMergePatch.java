@@ -0,0 +1,70 @@
+package com.duebook.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON Merge Patch (RFC 7386) helpers used to store audit snapshots as field-level changes.
+ */
+public final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /**
+     * Build the merge patch that turns {@code source} into {@code target}.
+     * Only changed fields are included; fields missing from the target are set to null.
+     */
+    public static JsonNode diff(JsonNode source, JsonNode target) {
+        if (source == null || !source.isObject() || target == null || !target.isObject()) {
+            return target;
+        }
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+
+        for (Map.Entry<String, JsonNode> field : target.properties()) {
+            JsonNode sourceValue = source.get(field.getKey());
+            JsonNode targetValue = field.getValue();
+            if (sourceValue == null || !sourceValue.equals(targetValue)) {
+                if (sourceValue != null && sourceValue.isObject() && targetValue.isObject()) {
+                    patch.set(field.getKey(), diff(sourceValue, targetValue));
+                } else {
+                    patch.set(field.getKey(), targetValue);
+                }
+            }
+        }
+
+        Iterator<String> sourceNames = source.fieldNames();
+        while (sourceNames.hasNext()) {
+            String name = sourceNames.next();
+            if (!target.has(name)) {
+                patch.putNull(name);
+            }
+        }
+        return patch;
+    }
+
+    /**
+     * Apply a merge patch to a copy of {@code target}
+     */
+    public static JsonNode apply(JsonNode target, JsonNode patch) {
+        if (patch == null || !patch.isObject()) {
+            return patch;
+        }
+        ObjectNode result = target != null && target.isObject()
+                ? ((ObjectNode) target).deepCopy()
+                : JsonNodeFactory.instance.objectNode();
+
+        for (Map.Entry<String, JsonNode> field : patch.properties()) {
+            if (field.getValue().isNull()) {
+                result.remove(field.getKey());
+            } else {
+                result.set(field.getKey(), apply(result.get(field.getKey()), field.getValue()));
+            }
+        }
+        return result;
+    }
+}
@@ -93,6 +93,8 @@ CREATE TABLE duebook_schema.customer_ledger (
 CREATE INDEX idx_ledger_customer ON duebook_schema.customer_ledger(customer_id);
 CREATE INDEX idx_ledger_shop ON duebook_schema.customer_ledger(shop_id);
 CREATE INDEX idx_ledger_date ON duebook_schema.customer_ledger(entry_date);
+CREATE INDEX idx_ledger_shop_type_date ON duebook_schema.customer_ledger(shop_id, entry_type, entry_date);
+CREATE INDEX idx_ledger_reference ON duebook_schema.customer_ledger(reference_entry_id) WHERE reference_entry_id IS NOT NULL;
 
 CREATE TABLE duebook_schema.payments (
     id BIGSERIAL PRIMARY KEY,
@@ -102,8 +104,20 @@ CREATE TABLE duebook_schema.payments (
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
+-- One payment record per PAID ledger entry
+CREATE UNIQUE INDEX idx_payments_ledger_entry ON duebook_schema.payments(ledger_entry_id);
+
+-- Adding the payment mode indexes to an existing database:
+-- CREATE INDEX CONCURRENTLY idx_ledger_shop_type_date ON duebook_schema.customer_ledger(shop_id, entry_type, entry_date);
+-- CREATE INDEX CONCURRENTLY idx_ledger_reference ON duebook_schema.customer_ledger(reference_entry_id) WHERE reference_entry_id IS NOT NULL;
+-- CREATE UNIQUE INDEX CONCURRENTLY idx_payments_ledger_entry ON duebook_schema.payments(ledger_entry_id);
+
+-- Audit log is range partitioned by month on performed_at.
+-- Monthly partitions (audit_log_pYYYYMM) are created ahead of time and detached
+-- after the retention period by the application (see AuditPartitionService),
+-- so the application user must own the parent table.
 CREATE TABLE duebook_schema.audit_log (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL NOT NULL,
     shop_id BIGINT NOT NULL REFERENCES duebook_schema.shops(id),
     entity_type VARCHAR(50) NOT NULL,
     entity_id UUID NOT NULL,
@@ -111,12 +125,77 @@ CREATE TABLE duebook_schema.audit_log (
     performed_by BIGINT NOT NULL REFERENCES duebook_schema.users(id),
     old_value JSONB,
     new_value JSONB,
-    performed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
- );
+    value_encoding VARCHAR(10) NOT NULL DEFAULT 'FULL',
+    performed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, performed_at)
+ ) PARTITION BY RANGE (performed_at);
 
-CREATE INDEX idx_audit_shop ON duebook_schema.audit_log(shop_id);
+CREATE INDEX idx_audit_shop_performed_at ON duebook_schema.audit_log(shop_id, performed_at DESC);
 CREATE INDEX idx_audit_entity ON duebook_schema.audit_log(entity_type, entity_id);
 
+-- Catches rows for months without a partition (maintenance disabled, failing, or the application
+-- down across a month boundary) so audit inserts, and the ledger writes they are part of, never fail.
+-- AuditPartitionService moves those rows into the month's partition when it creates it.
+CREATE TABLE duebook_schema.audit_log_default PARTITION OF duebook_schema.audit_log DEFAULT;
+
+-- Partitions for the current month and the next three (audit.partition.months-ahead);
+-- later months are created by the application
+DO $$
+DECLARE
+    month_start DATE;
+BEGIN
+    FOR i IN 0..3 LOOP
+        month_start := date_trunc('month', CURRENT_DATE) + make_interval(months => i);
+        EXECUTE format('CREATE TABLE IF NOT EXISTS duebook_schema.audit_log_p%s PARTITION OF duebook_schema.audit_log FOR VALUES FROM (%L) TO (%L)',
+                       to_char(month_start, 'YYYYMM'), month_start, month_start + INTERVAL '1 month');
+    END LOOP;
+END $$;
+
+ALTER TABLE duebook_schema.audit_log OWNER TO duebook_app_user;
+
+-- Adding the default partition to an existing partitioned audit_log:
+-- CREATE TABLE duebook_schema.audit_log_default PARTITION OF duebook_schema.audit_log DEFAULT;
+
+-- Adding value_encoding to an existing audit_log (existing rows hold full snapshots):
+-- ALTER TABLE duebook_schema.audit_log ADD COLUMN value_encoding VARCHAR(10) NOT NULL DEFAULT 'FULL';
+
+-- Migrating an existing unpartitioned audit_log (run once, during a maintenance window):
+-- ALTER TABLE duebook_schema.audit_log RENAME TO audit_log_legacy;
+-- (create the partitioned duebook_schema.audit_log as above, then)
+-- ALTER TABLE duebook_schema.audit_log ATTACH PARTITION duebook_schema.audit_log_legacy
+--     FOR VALUES FROM (MINVALUE) TO ('<first day of the current month>');
+-- (after adding PRIMARY KEY (id, performed_at) to audit_log_legacy)
+-- SELECT setval(pg_get_serial_sequence('duebook_schema.audit_log', 'id'), (SELECT max(id) FROM duebook_schema.audit_log_legacy));
+
+-- Distinct action / entity type values per shop, used for audit log filter lists
+CREATE TABLE duebook_schema.audit_log_dictionary (
+    id BIGSERIAL PRIMARY KEY,
+    shop_id BIGINT NOT NULL REFERENCES duebook_schema.shops(id),
+    action VARCHAR(50) NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    UNIQUE (shop_id, action, entity_type)
+);
+
+-- Backfill for an existing audit_log (run once after creating the table):
+-- INSERT INTO duebook_schema.audit_log_dictionary (shop_id, action, entity_type)
+-- SELECT DISTINCT shop_id, action, entity_type FROM duebook_schema.audit_log ON CONFLICT DO NOTHING;
+
+-- Responses of write requests sent with an Idempotency-Key, replayed when the request is retried
+-- (Redis holds the fast-path copy; expired rows are deleted by IdempotencyService)
+CREATE TABLE duebook_schema.idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES duebook_schema.users(id),
+    idempotency_key VARCHAR(255) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response_status INT NOT NULL,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    UNIQUE (user_id, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON duebook_schema.idempotency_keys(expires_at);
+
 GRANT SELECT, INSERT, UPDATE, DELETE ON ALL TABLES IN SCHEMA duebook_schema TO duebook_app_user;
 GRANT USAGE, SELECT, UPDATE ON ALL SEQUENCES IN SCHEMA duebook_schema TO duebook_app_user;
 ALTER DEFAULT PRIVILEGES IN SCHEMA duebook_schema GRANT SELECT ON SEQUENCES TO duebook_app_user;
@@ -0,0 +1,112 @@
+package com.duebook.app.config;
+
+import com.duebook.app.dto.CustomerDTO;
+import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.dto.DashboardMetricsDTO;
+import com.duebook.app.dto.UserDTO;
+import com.duebook.app.model.CustomerLedger;
+import com.duebook.app.model.Payment;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response payloads shaped like the ones the API serves, shared by the serialization benchmarks.
+ */
+final class BenchmarkPayloads {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 1, 31);
+
+    private BenchmarkPayloads() {
+    }
+
+    /**
+     * Jackson beans as the application builds them: Boot's auto-configuration, plus JacksonConfig when tuned
+     */
+    static AnnotationConfigApplicationContext jacksonContext(boolean tuned) {
+        return tuned
+                ? new AnnotationConfigApplicationContext(JacksonAutoConfiguration.class, JacksonConfig.class)
+                : new AnnotationConfigApplicationContext(JacksonAutoConfiguration.class);
+    }
+
+    /**
+     * First page of a shop ledger, as returned by the ledger list endpoints
+     */
+    static Page<CustomerLedgerDTO> ledgerPage(int rows) {
+        List<CustomerLedgerDTO> content = new ArrayList<>(rows);
+        double balance = 0;
+        for (int i = 0; i < rows; i++) {
+            boolean paid = i % 3 == 2;
+            double amount = 150 + (i * 37) % 900;
+            balance += paid ? -amount : amount;
+
+            CustomerLedgerDTO entry = new CustomerLedgerDTO();
+            entry.setId(10_000L + i);
+            entry.setCustomerId(500L + i % 20);
+            entry.setShopId(7L);
+            entry.setEntryType(paid ? CustomerLedger.LedgerEntryType.PAID : CustomerLedger.LedgerEntryType.BAKI);
+            entry.setAmount(amount);
+            entry.setBalanceAfter(balance);
+            entry.setNotes(i % 4 == 0 ? "Weekly groceries, rice and oil" : null);
+            if (paid) {
+                entry.setPaymentMode(i % 2 == 0 ? Payment.PaymentMode.UPI : Payment.PaymentMode.CASH);
+                entry.setPaymentReference(i % 2 == 0 ? "UPI-4102938" + i : null);
+            }
+            entry.setEntryDate(TODAY.minusDays(i / 4));
+            entry.setCreatedAt(TODAY.minusDays(i / 4).atTime(9 + i % 10, i % 60, 12));
+
+            CustomerDTO customer = new CustomerDTO();
+            customer.setId(entry.getCustomerId());
+            customer.setName("Customer " + i % 20);
+            customer.setPhone("98765" + String.format("%05d", i % 20));
+            entry.setCustomer(customer);
+            entry.setCreatedByUser(new UserDTO(3L, "Shop Owner", "owner@example.com"));
+            content.add(entry);
+        }
+        return new PageImpl<>(content, PageRequest.of(0, rows, Sort.by(Sort.Direction.DESC, "entryDate")), 1_250);
+    }
+
+    /**
+     * Dashboard metrics for an owner of three shops, with the full 30-day trend
+     */
+    static DashboardMetricsDTO dashboard() {
+        List<DashboardMetricsDTO.TopCustomerDTO> topCustomers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            topCustomers.add(DashboardMetricsDTO.TopCustomerDTO.builder()
+                    .customerId(500L + i).name("Customer " + i).entityName(i % 2 == 0 ? "Traders " + i : null)
+                    .shopId(7L + i % 3).shopName("Shop " + i % 3).currentBalance(25_000.0 - i * 1_500).build());
+        }
+        List<DashboardMetricsDTO.DailyTransactionTrendDTO> trend = new ArrayList<>();
+        for (int i = 29; i >= 0; i--) {
+            trend.add(DashboardMetricsDTO.DailyTransactionTrendDTO.builder()
+                    .date(TODAY.minusDays(i).toString()).debitAmount(4_200.0 + i * 35).debitCount(18L + i % 5)
+                    .creditAmount(3_100.0 + i * 20).creditCount(11L + i % 4).build());
+        }
+        List<DashboardMetricsDTO.ShopDistributionDTO> shops = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            shops.add(DashboardMetricsDTO.ShopDistributionDTO.builder()
+                    .shopId(7L + i).shopName("Shop " + i).customerCount(120L + i * 40).totalBalance(180_000.0 + i * 25_000).build());
+        }
+        return DashboardMetricsDTO.builder()
+                .totalCustomers(480L).activeCustomers(412L).totalShops(3L)
+                .totalDebit(1_250_000.0).totalCredit(930_000.0).netBalance(320_000.0)
+                .totalTransactions(9_840L).averageTransactionValue(221.5)
+                .topCustomers(topCustomers)
+                .entryTypeDistribution(DashboardMetricsDTO.EntryTypeDistributionDTO.builder()
+                        .bakiCount(610L).paidCount(402L).bakiAmount(126_000.0).paidAmount(93_000.0).build())
+                .transactionTrend(trend)
+                .shopDistribution(shops)
+                .averageCustomerBalance(666.7).overdueBakiCount(37L).totalOverdueBaki(48_200.0)
+                .paymentHealthMetrics(DashboardMetricsDTO.PaymentHealthMetricsDTO.builder()
+                        .collectionRate(74.4).totalActiveCustomersWithBalance(301L)
+                        .largestOutstandingBalance(25_000.0).customersAboveAverageBalance(96L).build())
+                .build();
+    }
+}
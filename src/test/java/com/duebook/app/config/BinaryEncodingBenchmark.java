@@ -0,0 +1,89 @@
+package com.duebook.app.config;
+
+import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.dto.DashboardMetricsDTO;
+import com.duebook.app.dto.PageResponse;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of the negotiated response formats (JSON, CBOR, Smile) for a 100-row
+ * ledger page and the dashboard metrics, using the mappers the message converters are built with.
+ * Encoded sizes are printed at setup. Run with: mvn -Pjmh verify -DskipTests -Djmh.args=BinaryEncodingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BinaryEncodingBenchmark {
+
+    @Param({"ledgerPage", "dashboard"})
+    public String payload;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private AnnotationConfigApplicationContext context;
+    private ObjectMapper mapper;
+    private JavaType type;
+    private Object value;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkPayloads.jacksonContext(true);
+        mapper = switch (format) {
+            case "json" -> context.getBean(ObjectMapper.class);
+            case "cbor" -> context.getBean(MappingJackson2CborHttpMessageConverter.class).getObjectMapper();
+            case "smile" -> context.getBean(MappingJackson2SmileHttpMessageConverter.class).getObjectMapper();
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        };
+        if (payload.equals("ledgerPage")) {
+            value = PageResponse.of(BenchmarkPayloads.ledgerPage(100));
+            type = mapper.getTypeFactory().constructParametricType(PageResponse.class, CustomerLedgerDTO.class);
+        } else {
+            value = BenchmarkPayloads.dashboard();
+            type = mapper.getTypeFactory().constructType(DashboardMetricsDTO.class);
+        }
+        encoded = mapper.writeValueAsBytes(value);
+        if (!mapper.readValue(encoded, type).equals(value)) {
+            throw new IllegalStateException(format + " did not round-trip the " + payload + " payload");
+        }
+        System.out.printf("%n%s as %s: %d bytes%n", payload, format, encoded.length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return mapper.readValue(encoded, type);
+    }
+}
@@ -0,0 +1,73 @@
+package com.duebook.app.config;
+
+import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.dto.PageResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.data.domain.Page;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of a 100-row ledger page: Spring Data's PageImpl through Boot's default
+ * ObjectMapper (the response before PageResponse and JacksonConfig) against PageResponse
+ * through the tuned mapper. Run with: mvn -Pjmh verify -DskipTests -Djmh.args=PageSerializationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageSerializationBenchmark {
+
+    private static final int ROWS = 100;
+
+    private AnnotationConfigApplicationContext defaultContext;
+    private AnnotationConfigApplicationContext tunedContext;
+    private ObjectMapper defaultMapper;
+    private ObjectMapper tunedMapper;
+    private Page<CustomerLedgerDTO> page;
+    private PageResponse<CustomerLedgerDTO> pageResponse;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        defaultContext = BenchmarkPayloads.jacksonContext(false);
+        tunedContext = BenchmarkPayloads.jacksonContext(true);
+        defaultMapper = defaultContext.getBean(ObjectMapper.class);
+        tunedMapper = tunedContext.getBean(ObjectMapper.class);
+        page = BenchmarkPayloads.ledgerPage(ROWS);
+        pageResponse = PageResponse.of(page);
+
+        System.out.printf("%nPageImpl + default mapper: %d bytes, PageResponse + tuned mapper: %d bytes%n",
+                pageImplDefaultMapper().length, pageResponseTunedMapper().length);
+    }
+
+    @TearDown
+    public void tearDown() {
+        defaultContext.close();
+        tunedContext.close();
+    }
+
+    @Benchmark
+    public byte[] pageImplDefaultMapper() throws JsonProcessingException {
+        return defaultMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] pageResponseTunedMapper() throws JsonProcessingException {
+        return tunedMapper.writeValueAsBytes(pageResponse);
+    }
+}
@@ -0,0 +1,140 @@
+package com.duebook.app.service;
+
+import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.model.Customer;
+import com.duebook.app.model.CustomerLedger;
+import com.duebook.app.model.Shop;
+import com.duebook.app.model.ShopUser;
+import com.duebook.app.model.User;
+import jakarta.persistence.EntityManager;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger entries created per second through {@link CustomerLedgerService#createLedgerEntry}, on the
+ * same in-memory database and service wiring as {@link CustomerLedgerServiceWriteTest}. Tracks the
+ * write path's own cost (statements, flush, audit encoding) rather than database latency.
+ * Run with: mvn -Pjmh verify -DskipTests -Djmh.args=CustomerLedgerServiceWriteBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+// Hibernate's write path takes tens of thousands of calls to reach steady state
+@Warmup(iterations = 12, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CustomerLedgerServiceWriteBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CustomerLedgerService customerLedgerService;
+    private long userId;
+    private long customerId;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(LedgerWriteConfig.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:ledger-write-benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS duebook_schema",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                        "--spring.sql.init.mode=never",
+                        "--logging.level.root=WARN");
+        customerLedgerService = context.getBean(CustomerLedgerService.class);
+        EntityManager entityManager = context.getBean(EntityManager.class);
+
+        long[] ids = context.getBean(TransactionTemplate.class).execute(status -> {
+            Shop shop = new Shop();
+            shop.setName("Benchmark Shop");
+            entityManager.persist(shop);
+            User user = new User();
+            user.setName("Owner");
+            user.setEmail("owner@example.com");
+            user.setPhone("9000000000");
+            user.setPassword("secret");
+            entityManager.persist(user);
+            ShopUser shopUser = new ShopUser();
+            shopUser.setShop(shop);
+            shopUser.setUser(user);
+            shopUser.setRole(ShopUser.ShopUserRole.OWNER);
+            entityManager.persist(shopUser);
+            Customer customer = new Customer();
+            customer.setShop(shop);
+            customer.setName("Customer");
+            customer.setPhone("9111111111");
+            entityManager.persist(customer);
+            return new long[]{user.getId(), customer.getId()};
+        });
+        userId = ids[0];
+        customerId = ids[1];
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public CustomerLedgerDTO createLedgerEntry() {
+        CustomerLedgerDTO dto = new CustomerLedgerDTO();
+        dto.setCustomerId(customerId);
+        dto.setEntryType(CustomerLedger.LedgerEntryType.BAKI);
+        dto.setAmount(100.0);
+        dto.setEntryDate(LocalDate.now());
+        dto.setNotes("benchmark");
+        return customerLedgerService.createLedgerEntry(dto, userId);
+    }
+
+    /**
+     * The JPA slice the ledger service needs, with the Redis-backed collaborators stubbed out.
+     * Stub-only mocks, so the run does not keep every call's arguments.
+     */
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            TransactionAutoConfiguration.class, JdbcTemplateAutoConfiguration.class, JacksonAutoConfiguration.class})
+    @EntityScan("com.duebook.app.model")
+    @EnableJpaRepositories("com.duebook.app.repository")
+    @Import({CustomerLedgerService.class, AuditService.class})
+    static class LedgerWriteConfig {
+
+        @Bean
+        ShopDataVersionService shopDataVersionService() {
+            return Mockito.mock(ShopDataVersionService.class, Mockito.withSettings().stubOnly());
+        }
+
+        @Bean
+        ShopEventService shopEventService() {
+            return Mockito.mock(ShopEventService.class, Mockito.withSettings().stubOnly());
+        }
+    }
+}
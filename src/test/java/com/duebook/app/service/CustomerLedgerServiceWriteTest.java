@@ -0,0 +1,186 @@
+package com.duebook.app.service;
+
+import com.duebook.app.dto.CustomerLedgerDTO;
+import com.duebook.app.model.Customer;
+import com.duebook.app.model.CustomerLedger;
+import com.duebook.app.model.Shop;
+import com.duebook.app.model.ShopUser;
+import com.duebook.app.model.User;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the ledger write path against statement regressions: creating an entry should take
+ * one read (customer, acting user and permission check together) and three writes (balance
+ * update, ledger insert, audit insert) once the audit dictionary is warm, and still leave the
+ * balances and both audit rows behind. Throughput is measured by {@link CustomerLedgerServiceWriteBenchmark}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:ledger-write;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS duebook_schema",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.sql.init.mode=never"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({CustomerLedgerService.class, AuditService.class, CustomerLedgerServiceWriteTest.StatementCounter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CustomerLedgerServiceWriteTest {
+
+    private static final int MAX_STATEMENTS_PER_ENTRY = 4;
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @MockitoBean
+    private ShopDataVersionService shopDataVersionService;
+
+    @MockitoBean
+    private ShopEventService shopEventService;
+
+    @Autowired
+    private CustomerLedgerService customerLedgerService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createLedgerEntryRunsOneReadAndThreeWrites() {
+        long[] ids = transactionTemplate.execute(status -> {
+            Shop shop = new Shop();
+            shop.setName("Test Shop");
+            entityManager.persist(shop);
+            User user = new User();
+            user.setName("Owner");
+            user.setEmail("owner@example.com");
+            user.setPhone("9000000000");
+            user.setPassword("secret");
+            entityManager.persist(user);
+            ShopUser shopUser = new ShopUser();
+            shopUser.setShop(shop);
+            shopUser.setUser(user);
+            shopUser.setRole(ShopUser.ShopUserRole.OWNER);
+            entityManager.persist(shopUser);
+            Customer customer = new Customer();
+            customer.setShop(shop);
+            customer.setName("Customer");
+            customer.setPhone("9111111111");
+            entityManager.persist(customer);
+            return new long[]{user.getId(), customer.getId()};
+        });
+        long userId = ids[0];
+        long customerId = ids[1];
+
+        // The first entries record the shop's audit dictionary values
+        customerLedgerService.createLedgerEntry(entry(customerId, CustomerLedger.LedgerEntryType.BAKI, 100.0), userId);
+        customerLedgerService.createLedgerEntry(entry(customerId, CustomerLedger.LedgerEntryType.PAID, 40.0), userId);
+        long auditRowsBefore = countAuditRows();
+
+        STATEMENTS.clear();
+        CustomerLedgerDTO created = customerLedgerService.createLedgerEntry(entry(customerId, CustomerLedger.LedgerEntryType.BAKI, 250.0), userId);
+
+        assertThat(STATEMENTS).as("statements for one ledger entry").hasSizeLessThanOrEqualTo(MAX_STATEMENTS_PER_ENTRY);
+
+        // 100 - 40 + 250
+        assertThat(created.getBalanceAfter()).isEqualTo(310.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT balance_after FROM duebook_schema.customer_ledger WHERE id = ?",
+                Double.class, created.getId())).isEqualTo(310.0);
+        assertThat(jdbcTemplate.queryForObject("SELECT current_balance FROM duebook_schema.customers WHERE id = ?",
+                Double.class, customerId)).isEqualTo(310.0);
+
+        assertThat(countAuditRows() - auditRowsBefore).as("audit rows for one ledger entry").isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM duebook_schema.audit_log WHERE entity_type = 'LEDGER' "
+                + "AND action = 'LEDGER_ENTRY_CREATED' AND entity_id = ?", Long.class, new UUID(0, created.getId()))).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM duebook_schema.audit_log WHERE entity_type = 'CUSTOMER' "
+                + "AND action = 'LEDGER_BALANCE_ADJUSTED' AND entity_id = ?", Long.class, new UUID(0, customerId))).isEqualTo(3);
+    }
+
+    private long countAuditRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM duebook_schema.audit_log", Long.class);
+    }
+
+    private static CustomerLedgerDTO entry(long customerId, CustomerLedger.LedgerEntryType type, double amount) {
+        CustomerLedgerDTO dto = new CustomerLedgerDTO();
+        dto.setCustomerId(customerId);
+        dto.setEntryType(type);
+        dto.setAmount(amount);
+        dto.setEntryDate(LocalDate.now());
+        dto.setNotes("test");
+        return dto;
+    }
+
+    /**
+     * Records every statement prepared on a connection from the application's DataSource
+     */
+    @TestConfiguration
+    static class StatementCounter {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                            (proxy, method, args) -> {
+                                Object result = invoke(method, dataSource, args);
+                                return result instanceof Connection connection ? counting(connection) : result;
+                            });
+                }
+            };
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().startsWith("prepare") || method.getName().equals("createStatement")) {
+                            STATEMENTS.add(args != null && args.length > 0 ? String.valueOf(args[0]) : method.getName());
+                        }
+                        return invoke(method, connection, args);
+                    });
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
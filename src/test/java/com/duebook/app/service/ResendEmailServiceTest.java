@@ -0,0 +1,220 @@
+package com.duebook.app.service;
+
+import com.duebook.app.config.BackgroundThreads;
+import com.duebook.app.dto.EmailIntent;
+import com.duebook.app.model.EmailTemplate;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.thymeleaf.ThymeleafAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.client.RestTemplate;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Drives the email queue end to end against a real Redis server and a stub of the Resend API:
+ * delivery from the stream, backoff through the retry set, and dead-lettering.
+ */
+@SpringBootTest(classes = {ResendEmailService.class, RateLimiterService.class, BackgroundThreads.class,
+        ResendEmailServiceTest.TestServers.class}, properties = {
+        "resend.api.key=test-key",
+        "resend.sender.email=Duebook Test <test@example.com>",
+        "resend.api.rate.limit.requests.per.second=1000",
+        "resend.api.rate.limit.burst=1000",
+        "resend.queue.poll.interval.millis=200",
+        "resend.queue.max.attempts=2",
+        "resend.queue.retry.base.delay.seconds=1",
+        "resend.queue.shutdown.timeout.seconds=2"
+})
+@ImportAutoConfiguration({RedisAutoConfiguration.class, JacksonAutoConfiguration.class, ThymeleafAutoConfiguration.class})
+@DirtiesContext
+class ResendEmailServiceTest {
+
+    private static final String STREAM_KEY = "duebook-email:stream";
+    private static final String RETRY_KEY = "duebook-email:retry";
+    private static final String DEAD_LETTER_KEY = "duebook-email:dead-letter";
+
+    private static final RedisServer REDIS;
+    private static final int REDIS_PORT;
+    private static final HttpServer RESEND;
+    private static final List<String> REQUESTS = new CopyOnWriteArrayList<>();
+    private static volatile int resendStatus = 200;
+
+    static {
+        try {
+            REDIS_PORT = freePort();
+            REDIS = RedisServer.newRedisServer().port(REDIS_PORT).bind("127.0.0.1").setting("save \"\"").build();
+            REDIS.start();
+            RESEND = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            RESEND.createContext("/emails", ResendEmailServiceTest::answer);
+            RESEND.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void servers(DynamicPropertyRegistry registry) {
+        String resendUrl = "http://127.0.0.1:" + RESEND.getAddress().getPort();
+        registry.add("spring.data.redis.host", () -> "127.0.0.1");
+        registry.add("spring.data.redis.port", () -> REDIS_PORT);
+        registry.add("resend.api.url", () -> resendUrl + "/emails");
+        registry.add("resend.api.batch.url", () -> resendUrl + "/emails/batch");
+    }
+
+    @Autowired
+    private ResendEmailService resendEmailService;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void resetQueue() {
+        setZaddAllowed(true);
+        redisTemplate.delete(List.of(STREAM_KEY, RETRY_KEY, DEAD_LETTER_KEY));
+        REQUESTS.clear();
+        resendStatus = 200;
+    }
+
+    @Test
+    void sendsQueuedEmailThroughResend() {
+        resendEmailService.sendEmail(new EmailIntent(new String[]{"owner@example.com"}, EmailTemplate.LOGIN_OTP, Map.of("otp", "123456")));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> REQUESTS.size() == 1);
+        assertThat(REQUESTS.get(0)).contains("owner@example.com", EmailTemplate.LOGIN_OTP.getSubject(), "123456");
+        await().atMost(Duration.ofSeconds(5)).until(() -> streamLength(STREAM_KEY) == 0);
+        assertThat(streamLength(DEAD_LETTER_KEY)).isZero();
+    }
+
+    @Test
+    void retriesTransientFailureThenDeadLetters() {
+        resendStatus = 503;
+        resendEmailService.sendEmail(rawEmail("Retried"));
+
+        // First failure parks it in the retry set, the retry fails too and uses up the two attempts
+        await().atMost(Duration.ofSeconds(15)).until(() -> streamLength(DEAD_LETTER_KEY) == 1);
+        assertThat(REQUESTS).hasSize(2);
+        MapRecord<String, Object, Object> deadLetter = deadLetters().get(0);
+        assertThat(deadLetter.getValue()).containsEntry("attempt", "2");
+        assertThat(String.valueOf(deadLetter.getValue().get("payload"))).contains("Retried");
+        assertThat(redisTemplate.opsForZSet().zCard(RETRY_KEY)).isZero();
+        assertThat(streamLength(STREAM_KEY)).isZero();
+    }
+
+    @Test
+    void deadLettersRejectedEmailWithoutRetrying() {
+        resendStatus = 422;
+        resendEmailService.sendEmail(rawEmail("Rejected"));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> streamLength(DEAD_LETTER_KEY) == 1);
+        assertThat(REQUESTS).hasSize(1);
+        assertThat(String.valueOf(deadLetters().get(0).getValue().get("error"))).startsWith("HTTP 422");
+    }
+
+    @Test
+    void leavesEmailPendingUntilNextTickWhenRetryCannotBeScheduled() throws InterruptedException {
+        // Deny ZADD so scheduling the retry fails while the rest of the queue keeps working
+        setZaddAllowed(false);
+        resendStatus = 503;
+        resendEmailService.sendEmail(rawEmail("Pending"));
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> !REQUESTS.isEmpty());
+        Thread.sleep(1000);
+        // At most one attempt per 200ms poll, not a tight resend loop over the pending entry
+        assertThat(REQUESTS).hasSizeBetween(1, 8);
+        assertThat(streamLength(STREAM_KEY)).isEqualTo(1);
+
+        setZaddAllowed(true);
+        resendStatus = 200;
+        await().atMost(Duration.ofSeconds(10)).until(() -> streamLength(STREAM_KEY) == 0 && redisTemplate.opsForZSet().zCard(RETRY_KEY) == 0);
+        assertThat(REQUESTS.get(REQUESTS.size() - 1)).contains("Pending");
+        assertThat(streamLength(DEAD_LETTER_KEY)).isZero();
+    }
+
+    private static EmailIntent rawEmail(String subject) {
+        EmailIntent intent = new EmailIntent();
+        intent.setTo(new String[]{"customer@example.com"});
+        intent.setSubject(subject);
+        intent.setHtml("<p>" + subject + "</p>");
+        return intent;
+    }
+
+    private void setZaddAllowed(boolean allowed) {
+        redisTemplate.execute((RedisCallback<Object>) connection -> connection.execute("ACL",
+                "SETUSER".getBytes(StandardCharsets.UTF_8), "default".getBytes(StandardCharsets.UTF_8),
+                (allowed ? "+zadd" : "-zadd").getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private long streamLength(String key) {
+        Long size = redisTemplate.opsForStream().size(key);
+        return size != null ? size : 0;
+    }
+
+    private List<MapRecord<String, Object, Object>> deadLetters() {
+        return redisTemplate.opsForStream().range(DEAD_LETTER_KEY, Range.unbounded());
+    }
+
+    private static void answer(HttpExchange exchange) throws IOException {
+        REQUESTS.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        byte[] body = (resendStatus == 200 ? "{\"id\":\"stub\"}" : "{\"message\":\"stub error\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(resendStatus, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    @TestConfiguration
+    static class TestServers {
+
+        @Bean
+        RestTemplate restTemplate() {
+            return new RestTemplate(new JdkClientHttpRequestFactory());
+        }
+
+        /**
+         * Stops the stub servers once the context is closed, after the email sender has returned its pending work
+         */
+        @Bean
+        DisposableBean testServersShutdown() {
+            return () -> {
+                RESEND.stop(0);
+                REDIS.stop();
+            };
+        }
+    }
+}
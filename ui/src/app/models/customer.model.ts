@@ -18,3 +18,11 @@ export interface CustomerResponse extends Customer {
   shop: Shop;
 }
 
+export interface CustomerLookup {
+  id: number;
+  shopId: number;
+  name: string;
+  entityName?: string;
+  phone: string;
+  isActive: boolean;
+}
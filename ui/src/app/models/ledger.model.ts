@@ -40,3 +40,8 @@ export interface CustomerLedgerResponse extends CustomerLedger {
   };
 }
 
+
+export interface ShopEvent {
+  type: 'ledger-created' | 'ledger-reversed' | 'balance-changed';
+  data: any;
+}
@@ -1,7 +1,7 @@
 import { Injectable } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { Customer } from '../models/customer.model';
+import { Customer, CustomerLookup } from '../models/customer.model';
 import {environment} from "../../environments/environment.development";
 
 @Injectable({
@@ -78,4 +78,15 @@ export class CustomerService {
 
     return this.http.get<any>(`${this.apiUrl}/customers/shop/${shopId}/summary`, { params });
   }
+
+  /**
+   * Typeahead lookup of customers in a shop by name or phone prefix
+   */
+  autocompleteCustomers(shopId: number, query: string, limit: number = 10): Observable<CustomerLookup[]> {
+    const params = new HttpParams()
+      .set('q', query)
+      .set('limit', limit.toString());
+
+    return this.http.get<CustomerLookup[]>(`${this.apiUrl}/customers/shop/${shopId}/autocomplete`, { params });
+  }
 }
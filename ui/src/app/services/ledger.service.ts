@@ -1,7 +1,7 @@
-import { Injectable } from '@angular/core';
+import { Injectable, NgZone } from '@angular/core';
 import { HttpClient, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
-import { CustomerLedger } from '../models/ledger.model';
+import { CustomerLedger, ShopEvent } from '../models/ledger.model';
 import {environment} from "../../environments/environment.development";
 
 @Injectable({
@@ -11,7 +11,7 @@ export class LedgerService {
   private apiUrl = environment.apiUrl || 'http://localhost:8083/api';
 
 
-  constructor(private http: HttpClient) {}
+  constructor(private http: HttpClient, private zone: NgZone) {}
 
   createLedgerEntry(entry: CustomerLedger): Observable<CustomerLedger> {
     return this.http.post<CustomerLedger>(`${this.apiUrl}/ledger`, entry);
@@ -97,5 +97,50 @@ export class LedgerService {
 
     return this.http.get<any>(`${this.apiUrl}/ledger/shop/${shopId}/summary`, { params });
   }
-}
 
+  /**
+   * Live ledger and balance events for a shop. The stream URL carries a single-use ticket rather
+   * than the login token, so every (re)connect fetches a fresh ticket first; the stream ends when
+   * the subscription is closed.
+   */
+  streamShopEvents(shopId: number): Observable<ShopEvent> {
+    return new Observable<ShopEvent>(observer => {
+      const types: ShopEvent['type'][] = ['ledger-created', 'ledger-reversed', 'balance-changed'];
+      let source: EventSource | undefined;
+      let retry: ReturnType<typeof setTimeout> | undefined;
+      let closed = false;
+
+      const connect = () => {
+        this.http.post<{ ticket: string }>(`${this.apiUrl}/ledger/shop/${shopId}/events/ticket`, {}).subscribe({
+          next: ({ ticket }) => {
+            if (closed) {
+              return;
+            }
+            source = new EventSource(
+              `${this.apiUrl}/ledger/shop/${shopId}/events?ticket=${encodeURIComponent(ticket)}`);
+            types.forEach(type => source!.addEventListener(type, (event: MessageEvent) =>
+              this.zone.run(() => observer.next({ type, data: JSON.parse(event.data) }))));
+            // A used ticket cannot reconnect, so replace EventSource's own retry with a new ticket
+            source.onerror = () => {
+              source?.close();
+              scheduleReconnect();
+            };
+          },
+          error: () => scheduleReconnect()
+        });
+      };
+      const scheduleReconnect = () => {
+        if (!closed) {
+          retry = setTimeout(connect, 3000);
+        }
+      };
+
+      connect();
+      return () => {
+        closed = true;
+        clearTimeout(retry);
+        source?.close();
+      };
+    });
+  }
+}